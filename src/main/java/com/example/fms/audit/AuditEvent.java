@@ -0,0 +1,19 @@
+package com.example.fms.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+public class AuditEvent {
+    private String table;
+    private String action;
+    private Long userId;
+    private String email;
+    private LocalDateTime dateCreated;
+}
@@ -0,0 +1,224 @@
+package com.example.fms.audit;
+
+import com.example.fms.entity.AuditOutbox;
+import com.example.fms.entity.Journal;
+import com.example.fms.entity.User;
+import com.example.fms.repository.AuditOutboxRepository;
+import com.example.fms.repository.JournalRepository;
+import com.example.fms.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// По умолчанию (fms.audit.durable=true) событие сначала пишется в audit_outbox в транзакции действия,
+// фоновый flush переносит строки в journal пачками - после падения экземпляра ничего не теряется.
+// С durable=false события копятся в ограниченной очереди в памяти и пишутся пачками в фоне.
+// В обоих режимах пачка, которая не записалась, повторяется по одному событию: битое событие уходит
+// в dead letter (строка в audit_outbox после max-attempts или ERROR в логе), остальные записываются.
+@Component
+public class AuditJournal {
+    private static final Logger log = LoggerFactory.getLogger(AuditJournal.class);
+
+    @Autowired
+    private JournalRepository journalRepository;
+    @Autowired
+    private AuditOutboxRepository auditOutboxRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${fms.audit.durable:true}")
+    private boolean durable;
+    @Value("${fms.audit.queue-capacity:10000}")
+    private int queueCapacity;
+    @Value("${fms.audit.batch-size:500}")
+    private int batchSize;
+    @Value("${fms.audit.max-attempts:5}")
+    private int maxAttempts;
+
+    private BlockingQueue<AuditEvent> queue;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // синхронная запись может случиться в afterCommit чужой транзакции
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void record(String table, String action, User user) {
+        record(new AuditEvent(table, action, user == null ? null : user.getId(), null, LocalDateTime.now()));
+    }
+
+    public void record(String table, String action, String email) {
+        record(new AuditEvent(table, action, null, email, LocalDateTime.now()));
+    }
+
+    // durable: строка outbox коммитится вместе с действием, без транзакции - отдельной записью;
+    // в памяти: внутри транзакции событие попадает в очередь только после commit
+    private void record(AuditEvent event) {
+        if (durable) {
+            auditOutboxRepository.save(new AuditOutbox(event.getTable(), event.getAction(),
+                    event.getUserId(), event.getEmail(), event.getDateCreated()));
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    enqueue(event);
+                }
+            });
+        } else
+            enqueue(event);
+    }
+
+    private void enqueue(AuditEvent event) {
+        if (!queue.offer(event))
+            write(Collections.singletonList(event));
+    }
+
+    @Scheduled(fixedDelayString = "${fms.audit.flush-interval-ms:500}")
+    public void flush() {
+        drainQueue();
+        drainOutbox();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainQueue();
+    }
+
+    private void drainQueue() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                log.error("Journal flush failed, retrying {} events one by one", batch.size(), e);
+                if (!writeOneByOne(batch))
+                    return;
+            }
+            batch.clear();
+        }
+    }
+
+    // false - база недоступна: события возвращены в очередь, синхронно здесь не пишем никогда
+    private boolean writeOneByOne(List<AuditEvent> events) {
+        List<AuditEvent> failed = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for (AuditEvent event : events) {
+            try {
+                write(Collections.singletonList(event));
+            } catch (RuntimeException e) {
+                failed.add(event);
+                errors.add(e.toString());
+            }
+        }
+        boolean available = failed.size() < events.size() || isDatabaseAvailable();
+        for (int i = 0; i < failed.size(); i++) {
+            if (available)
+                deadLetter(failed.get(i), errors.get(i));
+            else if (!queue.offer(failed.get(i)))
+                deadLetter(failed.get(i), "queue is full while the database is unavailable");
+        }
+        return available;
+    }
+
+    private void deadLetter(AuditEvent event, String reason) {
+        log.error("Journal event dropped ({}): {}", reason, event);
+    }
+
+    private void drainOutbox() {
+        List<Long> ids;
+        do {
+            ids = auditOutboxRepository.findDueIds(maxAttempts, PageRequest.of(0, batchSize));
+            if (ids.isEmpty())
+                return;
+            List<Long> batch = ids;
+            try {
+                transactionTemplate.executeWithoutResult(status -> move(auditOutboxRepository.lockAllById(batch)));
+            } catch (RuntimeException e) {
+                log.error("Journal outbox flush failed, retrying {} rows one by one", batch.size(), e);
+                for (Long id : batch) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status ->
+                                move(auditOutboxRepository.lockAllById(Collections.singletonList(id))));
+                    } catch (RuntimeException rowError) {
+                        //если не записать и отметку о попытке, база недоступна - строки дождутся следующего flush
+                        String error = rowError.toString();
+                        transactionTemplate.executeWithoutResult(status ->
+                                auditOutboxRepository.failed(id, error.substring(0, Math.min(error.length(), 1000))));
+                        log.error("Journal outbox row id {} failed", id, rowError);
+                    }
+                }
+            }
+        } while (ids.size() == batchSize);
+    }
+
+    private void move(List<AuditOutbox> rows) {
+        insert(rows.stream()
+                .map(row -> new AuditEvent(row.getTable(), row.getAction(), row.getUserId(), row.getEmail(), row.getDateCreated()))
+                .collect(Collectors.toList()));
+        auditOutboxRepository.deleteInBatch(rows);
+    }
+
+    private boolean isDatabaseAvailable() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> entityManager.createNativeQuery("select 1").getSingleResult());
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void write(List<AuditEvent> events) {
+        transactionTemplate.executeWithoutResult(status -> insert(events));
+    }
+
+    private void insert(List<AuditEvent> events) {
+        // пользователей без id подтягиваем одним запросом на всю пачку
+        Set<String> emails = events.stream()
+                .filter(e -> e.getUserId() == null && e.getEmail() != null)
+                .map(AuditEvent::getEmail)
+                .collect(Collectors.toSet());
+        Map<String, User> users = emails.isEmpty() ? Collections.emptyMap()
+                : userRepository.findAllByEmailIn(emails).stream()
+                    .collect(Collectors.toMap(User::getEmail, Function.identity()));
+
+        List<Journal> journals = new ArrayList<>(events.size());
+        for (AuditEvent event : events) {
+            Journal journal = new Journal();
+            journal.setTable(event.getTable());
+            journal.setAction(event.getAction());
+            journal.setUser(event.getUserId() != null
+                    ? entityManager.getReference(User.class, event.getUserId())
+                    : users.get(event.getEmail()));
+            journal.setDeleted(false);
+            journal.setDateCreated(event.getDateCreated());
+            journals.add(journal);
+        }
+        journalRepository.saveAll(journals);
+    }
+}
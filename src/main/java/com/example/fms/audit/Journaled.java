@@ -0,0 +1,19 @@
+package com.example.fms.audit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Запись в журнал после успешного выполнения метода; внутри @Transactional - в той же транзакции, откат действия откатывает и запись.
+// table и user - SpEL по аргументам метода (#имя) и #result, user может вернуть User или email.
+// Без user берётся текущий пользователь из SecurityContext.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Journaled {
+    String table();
+
+    String action();
+
+    String user() default "";
+}
@@ -0,0 +1,64 @@
+package com.example.fms.audit;
+
+import com.example.fms.entity.User;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// выполняется внутри @Transactional (см. TransactionConfig), поэтому строка audit_outbox уходит в транзакции действия
+@Aspect
+@Component
+@Order(JournaledAspect.ORDER)
+public class JournaledAspect {
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE;
+
+    @Autowired
+    private AuditJournal auditJournal;
+
+    private final ExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    @AfterReturning(pointcut = "@annotation(journaled)", returning = "result")
+    public void journal(JoinPoint joinPoint, Journaled journaled, Object result) {
+        Method method = AopUtils.getMostSpecificMethod(
+                ((MethodSignature) joinPoint.getSignature()).getMethod(), joinPoint.getTarget().getClass());
+        EvaluationContext context = new MethodBasedEvaluationContext(null, method, joinPoint.getArgs(), parameterNameDiscoverer);
+        context.setVariable("result", result);
+
+        String table = expression(journaled.table()).getValue(context, String.class);
+        Object user = journaled.user().isEmpty() ? principal() : expression(journaled.user()).getValue(context);
+        if (user instanceof User)
+            auditJournal.record(table, journaled.action(), (User) user);
+        else
+            auditJournal.record(table, journaled.action(), (String) user);
+    }
+
+    private Expression expression(String source) {
+        return expressions.computeIfAbsent(source, parser::parseExpression);
+    }
+
+    private String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+}
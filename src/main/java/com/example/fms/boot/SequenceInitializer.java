@@ -0,0 +1,47 @@
+package com.example.fms.boot;
+
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+// Таблицы, созданные ещё с IDENTITY, уже содержат id, а последовательности ddl-auto создаёт с 1.
+// Перед стартом веб-сервера подтягиваем каждую последовательность выше max(id) её таблицы.
+@Component
+public class SequenceInitializer implements InitializingBean {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        if (!(sessionFactory.getJdbcServices().getDialect() instanceof PostgreSQL81Dialect))
+            return;
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            if (!(persister.getIdentifierGenerator() instanceof SequenceStyleGenerator)
+                    || !(persister instanceof AbstractEntityPersister))
+                continue;
+            SequenceStyleGenerator generator = (SequenceStyleGenerator) persister.getIdentifierGenerator();
+            AbstractEntityPersister entityPersister = (AbstractEntityPersister) persister;
+            String sequence = generator.getDatabaseStructure().getName();
+            int increment = generator.getDatabaseStructure().getIncrementSize();
+            // следующий nextval вернёт last_value + increment (или last_value, если ещё не вызывался);
+            // трогаем последовательность только если он попадёт в уже занятые id
+            jdbcTemplate.query("select setval('" + sequence + "', t.max_id + 1, false)" +
+                    " from (select coalesce(max(" + entityPersister.getIdentifierColumnNames()[0] + "), 0) as max_id" +
+                    " from " + entityPersister.getTableName() + ") t, " + sequence + " s" +
+                    " where case when s.is_called then s.last_value + " + increment + " else s.last_value end <= t.max_id",
+                    rs -> {});
+        }
+    }
+}
@@ -57,7 +57,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         http.cors().and().csrf().disable().authorizeRequests()
                 .antMatchers(AUTH_WHITELIST).permitAll()
                 .antMatchers("/registr/**").permitAll()
+                .antMatchers(HttpMethod.GET, "/images/**").permitAll()
                 .antMatchers(HttpMethod.POST, "/user/user").hasRole("ADMIN")
+                .antMatchers(HttpMethod.POST, "/user/batch").hasRole("ADMIN")
                 .antMatchers("/user/block/**").hasRole("ADMIN")
                 .antMatchers("/user/unBlock/**").hasRole("ADMIN")
                 .antMatchers(HttpMethod.PUT, "/user/departmentList").hasRole("ADMIN")
@@ -66,7 +68,10 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .antMatchers(HttpMethod.GET, "/user/id/{id}").hasRole("ADMIN")
                 .antMatchers(HttpMethod.GET, "/user/profile").hasAnyRole("ADMIN", "USER")
                 .antMatchers(HttpMethod.GET, "/journal/get").hasAnyRole("ADMIN", "USER")
+                .antMatchers(HttpMethod.GET, "/journal/export").hasRole("ADMIN")
                 .antMatchers(HttpMethod.DELETE, "/journal/**").hasRole("ADMIN")
+                .antMatchers("/transaction/rollup/**").hasRole("ADMIN")
+                .antMatchers("/cache/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
        //         .anyRequest().permitAll()
                 .and().exceptionHandling()
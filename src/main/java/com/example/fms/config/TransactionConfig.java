@@ -0,0 +1,11 @@
+package com.example.fms.config;
+
+import com.example.fms.audit.JournaledAspect;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+// транзакция открывается раньше @Journaled: запись в журнал коммитится и откатывается вместе с действием
+@Configuration
+@EnableTransactionManagement(proxyTargetClass = true, order = JournaledAspect.ORDER - 1)
+public class TransactionConfig {
+}
@@ -6,22 +6,20 @@ import com.example.fms.entity.ResponseMessage;
 import com.example.fms.exception.NotEnoughBalanceException;
 import com.example.fms.exception.ResourceNotFoundException;
 import com.example.fms.service.AccountService;
+import com.example.fms.specification.BaseSpecification;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.constraints.Min;
 import java.math.BigDecimal;
 import java.security.Principal;
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
 
 @CrossOrigin
 @RestController
@@ -46,20 +44,13 @@ public class AccountController {
                                        @RequestParam(required = false) BigDecimal balanceGreaterThan,
                                        @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
                                        @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore){
-       Set<Account> fooSet = new LinkedHashSet<>(accountService.getAll(isDeleted));
-
-        if (name != null)
-            fooSet.retainAll(accountService.getAllByName(name));
-        if (balanceLessThan != null)
-            fooSet.retainAll(accountService.getAllByBalanceLessThan(balanceLessThan));
-        if (balanceGreaterThan != null)
-            fooSet.retainAll(accountService.getAllByBalanceGreaterThan(balanceGreaterThan));
-        if (dateAfter != null)
-            fooSet.retainAll(accountService.getAllByDateCreatedAfter(dateAfter));
-        if (dateBefore != null)
-            fooSet.retainAll(accountService.getAllByDateCreatedBefore(dateBefore));
-        List<Account> list = new ArrayList<>(fooSet);
-        return accountService.getByPage(list, pageable);
+        Specification<Account> filter = Specification
+                .where(BaseSpecification.<Account>contains("name", name))
+                .and(BaseSpecification.lessThanOrEqual("balance", balanceLessThan))
+                .and(BaseSpecification.greaterThanOrEqual("balance", balanceGreaterThan))
+                .and(BaseSpecification.dateCreatedAfter(dateAfter))
+                .and(BaseSpecification.dateCreatedBefore(dateBefore));
+        return accountService.getAll(filter, isDeleted, pageable);
     }
 
     @GetMapping("/{accountId}")
@@ -8,6 +8,7 @@ import com.example.fms.entity.User;
 import com.example.fms.exception.AccessDenied;
 import com.example.fms.exception.ResourceNotFoundException;
 import com.example.fms.exception.ToMaintainDataIntegrityException;
+import com.example.fms.security.AuthenticatedUser;
 import com.example.fms.service.UserService;
 import com.example.fms.util.JwtUtil;
 import io.swagger.annotations.ApiParam;
@@ -15,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 
@@ -61,13 +63,14 @@ public class AuthController {
     public TokenDTO getToken(@RequestBody UserAuthDTO userAuthDTO){
         if (userAuthDTO.getEmail() == null || userAuthDTO.getPassword() == null)
             throw new ToMaintainDataIntegrityException("email or password is null");
+        Authentication authentication;
         try {
-            authenticationManager.authenticate(
+            authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(userAuthDTO.getEmail(), userAuthDTO.getPassword()));
         } catch (Exception e){
             throw new AccessDenied("Auth failed");
         }
-        return new TokenDTO(jwtUtil.generateToken(userAuthDTO.getEmail()));
+        return new TokenDTO(jwtUtil.generateToken((AuthenticatedUser) authentication.getPrincipal()));
     }
 }
 
@@ -0,0 +1,37 @@
+package com.example.fms.controller;
+
+import com.example.fms.util.JwtUtil;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/cache")
+public class CacheController {
+
+    private final JwtUtil jwtUtil;
+
+    CacheController(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put("token", stats(jwtUtil.tokenCacheStats(), jwtUtil.tokenCacheSize()));
+        return stats;
+    }
+
+    private static Map<String, Object> stats(CacheStats cacheStats, long size) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("hitCount", cacheStats.hitCount());
+        stats.put("missCount", cacheStats.missCount());
+        stats.put("hitRate", cacheStats.hitRate());
+        stats.put("evictionCount", cacheStats.evictionCount());
+        return stats;
+    }
+}
@@ -4,19 +4,17 @@ import com.example.fms.dto.CategoryDTO;
 import com.example.fms.entity.Category;
 import com.example.fms.entity.ResponseMessage;
 import com.example.fms.service.CategoryService;
+import com.example.fms.specification.BaseSpecification;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiParam;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
 
 @CrossOrigin
 @RestController
@@ -40,17 +38,11 @@ public class CategoryController {
                                         @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
                                         @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore) {
 
-        Set<Category> fooSet = new LinkedHashSet<>(categoryService.getAll(isDeleted));
-
-        if (name != null)
-            fooSet.retainAll(categoryService.getAllByNameContaining(name));
-        if (dateAfter != null)
-            fooSet.retainAll(categoryService.getAllByDateCreatedAfter(dateAfter));
-        if (dateBefore != null)
-            fooSet.retainAll(categoryService.getAllByDateCreatedBefore(dateBefore));
-
-        List<Category> list = new ArrayList<>(fooSet);
-        return categoryService.getByPage(list, pageable);
+        Specification<Category> filter = Specification
+                .where(BaseSpecification.<Category>contains("name", name))
+                .and(BaseSpecification.dateCreatedAfter(dateAfter))
+                .and(BaseSpecification.dateCreatedBefore(dateBefore));
+        return categoryService.getAll(filter, isDeleted, pageable);
     }
 
     @GetMapping("/{categoryId}")
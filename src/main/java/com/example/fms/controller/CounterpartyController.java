@@ -4,19 +4,17 @@ import com.example.fms.dto.CounterpartyDTO;
 import com.example.fms.entity.Counterparty;
 import com.example.fms.entity.ResponseMessage;
 import com.example.fms.service.CounterpartyService;
+import com.example.fms.specification.BaseSpecification;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiParam;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
 
 @CrossOrigin
 @RestController
@@ -41,17 +39,11 @@ public class CounterpartyController {
                                             @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
                                             @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore) {
 
-        Set<Counterparty> fooSet = new LinkedHashSet<>(counterpartyService.getAll(isDeleted));
-
-        if (name != null)
-            fooSet.retainAll(counterpartyService.getAllByNameContaining(name));
-        if (dateAfter != null)
-            fooSet.retainAll(counterpartyService.getAllByDateCreatedAfter(dateAfter));
-        if (dateBefore != null)
-            fooSet.retainAll(counterpartyService.getAllByDateCreatedBefore(dateBefore));
-
-        List<Counterparty> list = new ArrayList<>(fooSet);
-        return counterpartyService.getByPage(list, pageable);
+        Specification<Counterparty> filter = Specification
+                .where(BaseSpecification.<Counterparty>contains("name", name))
+                .and(BaseSpecification.dateCreatedAfter(dateAfter))
+                .and(BaseSpecification.dateCreatedBefore(dateBefore));
+        return counterpartyService.getAll(filter, isDeleted, pageable);
     }
 
     @GetMapping("/{id}")
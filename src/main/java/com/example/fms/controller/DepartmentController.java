@@ -4,19 +4,17 @@ import com.example.fms.dto.DepartmentDTO;
 import com.example.fms.entity.Department;
 import com.example.fms.entity.ResponseMessage;
 import com.example.fms.service.DepartmentService;
+import com.example.fms.specification.BaseSpecification;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiParam;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
 
 @CrossOrigin
 @RestController
@@ -40,17 +38,11 @@ public class DepartmentController {
                                           @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
                                           @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore) {
 
-        Set<Department> fooSet = new LinkedHashSet<>(departmentService.getAll(isDeleted));
-
-        if (name != null)
-            fooSet.retainAll(departmentService.getAllByNameContaining(name));
-        if (dateAfter != null)
-            fooSet.retainAll(departmentService.getAllByDateCreatedAfter(dateAfter));
-        if (dateBefore != null)
-            fooSet.retainAll(departmentService.getAllByDateCreatedBefore(dateBefore));
-
-        List<Department> list = new ArrayList<>(fooSet);
-        return departmentService.getByPage(list, pageable);
+        Specification<Department> filter = Specification
+                .where(BaseSpecification.<Department>contains("name", name))
+                .and(BaseSpecification.dateCreatedAfter(dateAfter))
+                .and(BaseSpecification.dateCreatedBefore(dateBefore));
+        return departmentService.getAll(filter, isDeleted, pageable);
     }
 
     @PostMapping("/add")
@@ -1,32 +1,36 @@
 package com.example.fms.controller;
 
+import com.example.fms.dto.FeedDTO;
 import com.example.fms.entity.Journal;
 import com.example.fms.entity.ResponseMessage;
-import com.example.fms.repository.UserRepository;
+import com.example.fms.security.CurrentUser;
 import com.example.fms.service.JournalService;
+import com.example.fms.specification.BaseSpecification;
+import com.example.fms.specification.JournalSpecification;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.security.Principal;
-import java.util.*;
 
 @CrossOrigin
 @RestController
 @RequestMapping("/journal")
 public class JournalController {
     private final JournalService journalService;
-    private final UserRepository userRepository;
+    private final CurrentUser currentUser;
 
     @Autowired
-    public JournalController(JournalService journalService, UserRepository userRepository) {
+    public JournalController(JournalService journalService, CurrentUser currentUser) {
         this.journalService = journalService;
-        this.userRepository = userRepository;
+        this.currentUser = currentUser;
     }
 
     @DeleteMapping("/{id}")
@@ -37,7 +41,7 @@ public class JournalController {
     @GetMapping("/{id}")
     public ResponseEntity<Journal> getById(@PathVariable("id") Long id, Principal principal) {
         String email = principal.getName();
-        if (userRepository.findByEmail(email).getRole().getName().equals("ROLE_ADMIN"))
+        if (currentUser.get(email).isAdmin())
             return journalService.getByIdForAdmin(id);
         return journalService.getByIdForUser(id, email);
     }
@@ -49,28 +53,50 @@ public class JournalController {
                     value = "Number of records per page."),
     })
     @GetMapping("/get")
-    public Page<Journal> getAllByParam(Pageable pageable,
-                                       @RequestParam(value = "isDeleted", required = false, defaultValue = "false") boolean isDeleted,
-                                       @RequestParam(required = false) String table,
-                                       @RequestParam(required = false) String action,
-                                       @RequestParam(required = false) Long userId,
-                                       @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
-                                       @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore, Principal principal){
-        Set<Journal> fooSet = new LinkedHashSet<>(journalService.getAll(isDeleted, principal.getName()));
+    public Page<?> getAllByParam(Pageable pageable,
+                                 @ApiParam(value="true - full records with nested user instead of compact rows")
+                                 @RequestParam(required = false, defaultValue = "false") boolean expand,
+                                 @RequestParam(value = "isDeleted", required = false, defaultValue = "false") boolean isDeleted,
+                                 @RequestParam(required = false) String table,
+                                 @RequestParam(required = false) String action,
+                                 @RequestParam(required = false) Long userId,
+                                 @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
+                                 @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore, Principal principal){
+        Specification<Journal> filter = filter(table, action, userId, dateAfter, dateBefore);
+        if (expand)
+            return journalService.getAll(filter, isDeleted, principal.getName(), pageable);
+        return journalService.getRows(filter, isDeleted, principal.getName(), pageable);
+    }
+
+    @GetMapping("/feed")
+    public FeedDTO<Journal> getFeed(@ApiParam(value="nextCursor of the previous page") @RequestParam(required = false) String cursor,
+                                    @RequestParam(required = false, defaultValue = "20") int size,
+                                    @RequestParam(value = "isDeleted", required = false, defaultValue = "false") boolean isDeleted,
+                                    @RequestParam(required = false) String table,
+                                    @RequestParam(required = false) String action,
+                                    @RequestParam(required = false) Long userId,
+                                    @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
+                                    @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore, Principal principal){
+        return journalService.getFeed(filter(table, action, userId, dateAfter, dateBefore), isDeleted, principal.getName(), cursor, size);
+    }
 
-        if (table != null)
-            fooSet.retainAll(journalService.getAllByTable(table));
-        if (action != null)
-            fooSet.retainAll(journalService.getAllByAction(action));
-        if (userId != null)
-            fooSet.retainAll(journalService.getAllByUser(userId));
-        if (dateAfter != null)
-            fooSet.retainAll(journalService.getAllByDateCreatedAfter(dateAfter));
-        if (dateBefore != null)
-            fooSet.retainAll(journalService.getAllByDateCreatedBefore(dateBefore));
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@ApiParam(value="first ID to export, to resume an interrupted download") @RequestParam(required = false) Long fromId,
+                                                        @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
+                                                        @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore) {
+        return journalService.export(Specification
+                .where(JournalSpecification.fromId(fromId))
+                .and(BaseSpecification.dateCreatedAfter(dateAfter))
+                .and(BaseSpecification.dateCreatedBefore(dateBefore)));
+    }
 
-        List<Journal> list = new ArrayList<>(fooSet);
-        return journalService.getByPage(list, pageable);
+    private Specification<Journal> filter(String table, String action, Long userId, String dateAfter, String dateBefore) {
+        return Specification
+                .where(BaseSpecification.<Journal>contains("table", table))
+                .and(BaseSpecification.contains("action", action))
+                .and(JournalSpecification.user(userId))
+                .and(BaseSpecification.dateCreatedAfter(dateAfter))
+                .and(BaseSpecification.dateCreatedBefore(dateBefore));
     }
 
 }
@@ -6,11 +6,13 @@ import com.example.fms.entity.ResponseMessage;
 import com.example.fms.entity.User;
 import com.example.fms.service.ProjectService;
 import com.example.fms.service.UserService;
+import com.example.fms.specification.BaseSpecification;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiParam;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,10 +20,6 @@ import org.springframework.web.server.ResponseStatusException;
 
 import javax.servlet.http.HttpServletRequest;
 import java.security.Principal;
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
 
 @CrossOrigin
 @RestController
@@ -46,17 +44,11 @@ public class ProjectController {
                                                      @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
                                                      @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore) {
 
-        Set<Project> fooSet = new LinkedHashSet<>(projectService.getAll(isDeleted));
-
-        if (name != null)
-            fooSet.retainAll(projectService.getAllByNameContaining(name));
-        if (dateAfter != null)
-            fooSet.retainAll(projectService.getAllByDateCreatedAfter(dateAfter));
-        if (dateBefore != null)
-            fooSet.retainAll(projectService.getAllByDateCreatedBefore(dateBefore));
-
-        List<Project> list = new ArrayList<>(fooSet);
-        return projectService.getByPage(list, pageable);
+        Specification<Project> filter = Specification
+                .where(BaseSpecification.<Project>contains("name", name))
+                .and(BaseSpecification.dateCreatedAfter(dateAfter))
+                .and(BaseSpecification.dateCreatedBefore(dateBefore));
+        return projectService.getAll(filter, isDeleted, pageable);
     }
 
     @PostMapping("/add")
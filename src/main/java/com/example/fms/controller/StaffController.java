@@ -5,19 +5,17 @@ import com.example.fms.entity.ResponseMessage;
 import com.example.fms.entity.Staff;
 import com.example.fms.entity.Transaction;
 import com.example.fms.service.StaffService;
+import com.example.fms.specification.BaseSpecification;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiParam;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
 
 @CrossOrigin
 @RestController
@@ -42,18 +40,11 @@ public class StaffController {
                                      @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
                                      @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore){
 
-       Set<Staff> fooSet = new LinkedHashSet<>(staffService.getAll(isDeleted));
-
-        if (name != null)
-            fooSet.retainAll(staffService.getAllStaffByName(name));
-        if (dateAfter != null)
-            fooSet.retainAll(staffService.getAllByDateCreatedAfter(dateAfter));
-        if (dateBefore != null)
-            fooSet.retainAll(staffService.getAllByDateCreatedBefore(dateBefore));
-
-        List<Staff> list = new ArrayList<>(fooSet);
-        return staffService.getByPage(list, pageable);
-
+        Specification<Staff> filter = Specification
+                .where(BaseSpecification.<Staff>contains("name", name))
+                .and(BaseSpecification.dateCreatedAfter(dateAfter))
+                .and(BaseSpecification.dateCreatedBefore(dateBefore));
+        return staffService.getAll(filter, isDeleted, pageable);
     }
 
     @PostMapping("/add")
@@ -1,20 +1,29 @@
 package com.example.fms.controller;
 
+import com.example.fms.dto.BatchItemResultDTO;
+import com.example.fms.dto.FeedDTO;
+import com.example.fms.dto.ProfitDTO;
+import com.example.fms.dto.TransactionBatchDTO;
 import com.example.fms.dto.TransactionExpenseDTO;
 import com.example.fms.dto.TransactionIncomeDTO;
 import com.example.fms.dto.TransactionRemittanceDTO;
 import com.example.fms.entity.ResponseMessage;
 import com.example.fms.entity.Transaction;
-import com.example.fms.repository.UserRepository;
+import com.example.fms.security.CurrentUser;
+import com.example.fms.service.TransactionRollupService;
 import com.example.fms.service.TransactionService;
+import com.example.fms.specification.BaseSpecification;
+import com.example.fms.specification.TransactionSpecification;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiParam;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.security.Principal;
@@ -28,17 +37,20 @@ import java.util.*;
 public class TransactionController {
 
     private final TransactionService transactionService;
-    private final UserRepository userRepository;
+    private final TransactionRollupService transactionRollupService;
+    private final CurrentUser currentUser;
 
-    TransactionController(TransactionService transactionService, UserRepository userRepository) {
+    TransactionController(TransactionService transactionService, TransactionRollupService transactionRollupService,
+                          CurrentUser currentUser) {
         this.transactionService = transactionService;
-        this.userRepository = userRepository;
+        this.transactionRollupService = transactionRollupService;
+        this.currentUser = currentUser;
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Transaction> getById(@PathVariable("id") Long id, Principal principal){
         String email = principal.getName();
-        if (userRepository.findByEmail(email).getRole().getName().equals("ROLE_ADMIN"))
+        if (currentUser.get(email).isAdmin())
             return transactionService.getByIdForAdmin(id);
         else return transactionService.getByIdForUser(id, principal.getName());
     }
@@ -50,46 +62,82 @@ public class TransactionController {
                     value = "Number of records per page."),
     })
     @GetMapping("/get")
-    public Page<Transaction> getAllByParam(Pageable pageable,
-                                           @RequestParam(value = "isDeleted", required = false, defaultValue = "false") boolean isDeleted,
-                                           @RequestParam(required = false) String action,
-                                           @RequestParam(required = false) Long fromAccountId,
-                                           @RequestParam(required = false) Long categoryId,
-                                           @RequestParam(required = false) Long toAccountId,
-                                           @RequestParam(required = false) BigDecimal balanceLessThan,
-                                           @RequestParam(required = false) BigDecimal balanceGreaterThan,
-                                           @RequestParam(required = false) Long userId,
-                                           @RequestParam(required = false) Long projectId,
-                                           @RequestParam(required = false) Long counterpartyId,
-                                           @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
-                                           @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore, Principal principal) {
-        Set<Transaction> fooSet = new LinkedHashSet<>(transactionService.getAll(isDeleted, principal.getName()));
-
-        if (action != null)
-            fooSet.retainAll(transactionService.getAllByAction(action));
-        if (fromAccountId != null)
-            fooSet.retainAll(transactionService.getAllByFromAccount(fromAccountId));
-        if (categoryId != null)
-            fooSet.retainAll(transactionService.getAllByCategory(categoryId));
-        if (toAccountId != null)
-            fooSet.retainAll(transactionService.getAllByToAccount(toAccountId));
-        if (balanceLessThan != null)
-            fooSet.retainAll(transactionService.getAllByBalanceLessThanEqual(balanceLessThan));
-        if (balanceGreaterThan != null)
-            fooSet.retainAll(transactionService.getAllByBalanceGreaterThanEqual(balanceGreaterThan));
-        if (userId != null)
-            fooSet.retainAll(transactionService.getAllByUserId(userId));
-        if (projectId != null)
-            fooSet.retainAll(transactionService.getAllByProject(projectId));
-        if (counterpartyId != null)
-            fooSet.retainAll(transactionService.getAllByCounterparty(counterpartyId));
-        if (dateAfter != null)
-            fooSet.retainAll(transactionService.getAllByDateCreatedAfter(dateAfter));
-        if (dateBefore != null)
-            fooSet.retainAll(transactionService.getAllByDateCreatedBefore(dateBefore));
-
-        List<Transaction> list = new ArrayList<>(fooSet);
-        return transactionService.getByPage(list, pageable);
+    public Page<?> getAllByParam(Pageable pageable,
+                                 @ApiParam(value="true - full transactions with nested entities instead of compact rows")
+                                 @RequestParam(required = false, defaultValue = "false") boolean expand,
+                                 @RequestParam(value = "isDeleted", required = false, defaultValue = "false") boolean isDeleted,
+                                 @RequestParam(required = false) String action,
+                                 @RequestParam(required = false) Long fromAccountId,
+                                 @RequestParam(required = false) Long categoryId,
+                                 @RequestParam(required = false) Long toAccountId,
+                                 @RequestParam(required = false) BigDecimal balanceLessThan,
+                                 @RequestParam(required = false) BigDecimal balanceGreaterThan,
+                                 @RequestParam(required = false) Long userId,
+                                 @RequestParam(required = false) Long projectId,
+                                 @RequestParam(required = false) Long counterpartyId,
+                                 @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
+                                 @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore, Principal principal) {
+        Specification<Transaction> filter = filter(action, fromAccountId, categoryId, toAccountId, balanceLessThan,
+                balanceGreaterThan, userId, projectId, counterpartyId, dateAfter, dateBefore);
+        if (expand)
+            return transactionService.getAll(filter, isDeleted, principal.getName(), pageable);
+        return transactionService.getRows(filter, isDeleted, principal.getName(), pageable);
+    }
+
+    @GetMapping("/feed")
+    public FeedDTO<Transaction> getFeed(@ApiParam(value="nextCursor of the previous page") @RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false, defaultValue = "20") int size,
+                                        @RequestParam(value = "isDeleted", required = false, defaultValue = "false") boolean isDeleted,
+                                        @RequestParam(required = false) String action,
+                                        @RequestParam(required = false) Long fromAccountId,
+                                        @RequestParam(required = false) Long categoryId,
+                                        @RequestParam(required = false) Long toAccountId,
+                                        @RequestParam(required = false) BigDecimal balanceLessThan,
+                                        @RequestParam(required = false) BigDecimal balanceGreaterThan,
+                                        @RequestParam(required = false) Long userId,
+                                        @RequestParam(required = false) Long projectId,
+                                        @RequestParam(required = false) Long counterpartyId,
+                                        @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
+                                        @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore, Principal principal) {
+        Specification<Transaction> filter = filter(action, fromAccountId, categoryId, toAccountId, balanceLessThan,
+                balanceGreaterThan, userId, projectId, counterpartyId, dateAfter, dateBefore);
+        return transactionService.getFeed(filter, isDeleted, principal.getName(), cursor, size);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@ApiParam(value="csv or ndjson") @RequestParam(required = false, defaultValue = "csv") String format,
+                                                        @RequestParam(value = "isDeleted", required = false, defaultValue = "false") boolean isDeleted,
+                                                        @RequestParam(required = false) String action,
+                                                        @RequestParam(required = false) Long fromAccountId,
+                                                        @RequestParam(required = false) Long categoryId,
+                                                        @RequestParam(required = false) Long toAccountId,
+                                                        @RequestParam(required = false) BigDecimal balanceLessThan,
+                                                        @RequestParam(required = false) BigDecimal balanceGreaterThan,
+                                                        @RequestParam(required = false) Long userId,
+                                                        @RequestParam(required = false) Long projectId,
+                                                        @RequestParam(required = false) Long counterpartyId,
+                                                        @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
+                                                        @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore, Principal principal) {
+        Specification<Transaction> filter = filter(action, fromAccountId, categoryId, toAccountId, balanceLessThan,
+                balanceGreaterThan, userId, projectId, counterpartyId, dateAfter, dateBefore);
+        return transactionService.export(filter, isDeleted, principal.getName(), format);
+    }
+
+    private Specification<Transaction> filter(String action, Long fromAccountId, Long categoryId, Long toAccountId,
+                                              BigDecimal balanceLessThan, BigDecimal balanceGreaterThan, Long userId,
+                                              Long projectId, Long counterpartyId, String dateAfter, String dateBefore) {
+        return Specification
+                .where(BaseSpecification.<Transaction>contains("action", action))
+                .and(TransactionSpecification.fromAccount(fromAccountId))
+                .and(TransactionSpecification.category(categoryId))
+                .and(TransactionSpecification.toAccount(toAccountId))
+                .and(BaseSpecification.lessThanOrEqual("balance", balanceLessThan))
+                .and(BaseSpecification.greaterThanOrEqual("balance", balanceGreaterThan))
+                .and(TransactionSpecification.user(userId))
+                .and(TransactionSpecification.project(projectId))
+                .and(TransactionSpecification.counterparty(counterpartyId))
+                .and(BaseSpecification.dateCreatedAfter(dateAfter))
+                .and(BaseSpecification.dateCreatedBefore(dateBefore));
     }
 
     @PostMapping("/addIncome")
@@ -105,11 +153,11 @@ public class TransactionController {
                                                            @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam String dateBefore) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         if (category)
-            return transactionService.incomeCategory(LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter));
+            return transactionService.report("INCOME", "category", LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter));
         if (project)
-            return transactionService.incomeProject(LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter));
+            return transactionService.report("INCOME", "project", LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter));
         if (counterparty)
-            return transactionService.incomeCounterparty(LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter));
+            return transactionService.report("INCOME", "counterparty", LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter));
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
@@ -121,20 +169,27 @@ public class TransactionController {
                                                            @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam String dateBefore) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         if (category)
-            return transactionService.expenseCategory(LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter));
+            return transactionService.report("EXPENSE", "category", LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter));
         if (project)
-            return transactionService.expenseProject(LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter));
+            return transactionService.report("EXPENSE", "project", LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter));
         if (counterparty)
-            return transactionService.expenseCounterparty(LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter));
+            return transactionService.report("EXPENSE", "counterparty", LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter));
         return null;
     }
 
-//    @GetMapping("/profit")
-//    public ResponseEntity<BigDecimal> profit (@ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam String dateAfter,
-//                                              @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam String dateBefore, Principal principal) {
-//        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-//        return transactionService.profit(LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter), principal.getName());
-//    }
+    @GetMapping("/profit")
+    public ResponseEntity<List<ProfitDTO>> profit (@ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam String dateAfter,
+                                                   @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam String dateBefore,
+                                                   @ApiParam(value="day, week or month; whole range if empty") @RequestParam(required = false) String period,
+                                                   @RequestParam(required = false) boolean department) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        return transactionService.profit(LocalDateTime.parse(dateAfter, formatter), LocalDateTime.parse(dateBefore, formatter), period, department);
+    }
+
+    @PostMapping("/rollup/rebuild")
+    public ResponseMessage rebuildRollup() {
+        return transactionRollupService.rebuild();
+    }
 
     @PostMapping("/addExpense")
     public ResponseEntity<Transaction> addExpense (@RequestBody TransactionExpenseDTO transactionExpenseDTO, Principal principal){
@@ -146,6 +201,11 @@ public class TransactionController {
         return transactionService.addRemittance(transactionRemittanceDTO, principal.getName());
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResultDTO>> addBatch (@RequestBody TransactionBatchDTO transactionBatchDTO, Principal principal){
+        return transactionService.addBatch(transactionBatchDTO, principal.getName());
+    }
+
     @PutMapping("/updateIncome/{id}")
     public ResponseEntity<Transaction> updateIncome (@RequestBody TransactionIncomeDTO newTransaction, @PathVariable Long id, Principal principal) {
         return transactionService.updateIncomeById(newTransaction, id, principal.getName());
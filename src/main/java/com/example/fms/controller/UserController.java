@@ -1,21 +1,25 @@
 package com.example.fms.controller;
 
+import com.example.fms.dto.BatchItemResultDTO;
 import com.example.fms.dto.UserDTO;
 import com.example.fms.entity.ResponseMessage;
 import com.example.fms.entity.User;
 import com.example.fms.service.UserService;
+import com.example.fms.specification.BaseSpecification;
+import com.example.fms.specification.UserSpecification;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiParam;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.security.Principal;
-import java.util.*;
+import java.util.List;
 
 @CrossOrigin
 @RestController
@@ -32,6 +36,11 @@ public class UserController {
         return userService.createUser(userDTO);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResultDTO>> inviteBatch(@ApiParam(value = "every valid row gets a user and an activation link, invalid rows are reported with status ERROR") @RequestBody List<UserDTO> userDTOList){
+        return userService.inviteBatch(userDTOList);
+    }
+
     @PutMapping("/position/{position}")
     public ResponseEntity<User> setPosition(@PathVariable String position, Principal principal){
         return userService.setPosition(position, principal.getName());
@@ -92,34 +101,28 @@ public class UserController {
     }
 
     @GetMapping("/get")
-    public Page<User> getAllByParam(Pageable pageable,
-                                    @RequestParam(required = false) String name,
-                                    @RequestParam(required = false) Boolean isActive,
-                                    @RequestParam(required = false) String surname,
-                                    @RequestParam(required = false) List<Long> departmentListId,
-                                    @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
-                                    @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore,
-                                    @RequestParam(required = false) String position){
-
-        Set<User> fooSet = new LinkedHashSet<>(userService.getAll());
-
-        if (name != null)
-            fooSet.retainAll(userService.getAllByName(name));
-        if (isActive != null)
-            fooSet.retainAll(userService.getAllByActive(isActive));
-        if (surname != null)
-            fooSet.retainAll(userService.getAllBySurname(surname));
-        if (dateAfter != null)
-            fooSet.retainAll(userService.getAllByDateCreatedAfter(dateAfter));
-        if (dateBefore != null)
-            fooSet.retainAll(userService.getAllByDateCreatedBefore(dateBefore));
-        if (position != null)
-            fooSet.retainAll(userService.getAllByPosition(position));
-        if (departmentListId != null)
-            fooSet.retainAll(userService.getAllByDepartments(departmentListId));
-
-        List<User> userList = new ArrayList<>(fooSet);
-        return userService.getByPage(userList, pageable);
+    public Page<?> getAllByParam(Pageable pageable,
+                                 @ApiParam(value="true - full users with role, image and departments instead of compact rows")
+                                 @RequestParam(required = false, defaultValue = "false") boolean expand,
+                                 @RequestParam(required = false) String name,
+                                 @RequestParam(required = false) Boolean isActive,
+                                 @RequestParam(required = false) String surname,
+                                 @RequestParam(required = false) List<Long> departmentListId,
+                                 @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateAfter,
+                                 @ApiParam(value="yyyy-MM-dd HH:mm") @RequestParam(required = false) String dateBefore,
+                                 @RequestParam(required = false) String position){
+
+        Specification<User> filter = Specification
+                .where(BaseSpecification.<User>contains("name", name))
+                .and(BaseSpecification.equal("active", isActive))
+                .and(BaseSpecification.contains("surname", surname))
+                .and(BaseSpecification.dateCreatedAfter(dateAfter))
+                .and(BaseSpecification.dateCreatedBefore(dateBefore))
+                .and(BaseSpecification.contains("position", position))
+                .and(UserSpecification.hasDepartments(departmentListId));
+        if (expand)
+            return userService.getAll(filter, pageable);
+        return userService.getRows(filter, pageable);
     }
 
 
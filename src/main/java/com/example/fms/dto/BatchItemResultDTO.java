@@ -0,0 +1,16 @@
+package com.example.fms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+public class BatchItemResultDTO {
+    private int index;
+    private Long id;
+    private String status;
+    private String message;
+}
@@ -0,0 +1,16 @@
+package com.example.fms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+public class FeedDTO<T> {
+    private List<T> content;
+    private String nextCursor;
+}
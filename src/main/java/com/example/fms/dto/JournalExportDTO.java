@@ -0,0 +1,46 @@
+package com.example.fms.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+//поля и формат те же, что у gson JournalSerializer
+@Data
+@NoArgsConstructor
+
+@JsonPropertyOrder({"ID", "DateCreated", "DateUpdated", "User", "Table", "Action", "Deleted"})
+public class JournalExportDTO {
+    @JsonProperty("ID")
+    private Long id;
+    @JsonProperty("DateCreated")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
+    private LocalDateTime dateCreated;
+    @JsonProperty("DateUpdated")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime dateUpdated;
+    @JsonProperty("User")
+    private String user;
+    @JsonProperty("Table")
+    private String table;
+    @JsonProperty("Action")
+    private String action;
+    @JsonProperty("Deleted")
+    private boolean deleted;
+
+    public JournalExportDTO(Long id, LocalDateTime dateCreated, LocalDateTime dateUpdated, String name, String surname,
+                            String table, String action, boolean deleted) {
+        this.id = id;
+        this.dateCreated = dateCreated;
+        this.dateUpdated = dateUpdated;
+        this.user = (name == null ? "" : name) + (surname == null ? "" : surname);
+        this.table = table;
+        this.action = action;
+        this.deleted = deleted;
+    }
+}
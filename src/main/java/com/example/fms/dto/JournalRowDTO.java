@@ -0,0 +1,20 @@
+package com.example.fms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+public class JournalRowDTO {
+    private Long id;
+    private LocalDateTime dateCreated;
+    private String table;
+    private String action;
+    private Long userId;
+    private String user;
+}
@@ -0,0 +1,33 @@
+package com.example.fms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+public class ProfitDTO {
+    private LocalDate period;
+    private Long departmentId;
+    private String department;
+    private BigDecimal income = BigDecimal.ZERO;
+    private BigDecimal expense = BigDecimal.ZERO;
+    private BigDecimal net = BigDecimal.ZERO;
+
+    public ProfitDTO(LocalDate period, Long departmentId, BigDecimal income, BigDecimal expense) {
+        this.period = period;
+        this.departmentId = departmentId;
+        this.income = income == null ? BigDecimal.ZERO : income;
+        this.expense = expense == null ? BigDecimal.ZERO : expense;
+        this.net = this.income.subtract(this.expense);
+    }
+
+    public ProfitDTO(Long departmentId, BigDecimal income, BigDecimal expense) {
+        this(null, departmentId, income, expense);
+    }
+}
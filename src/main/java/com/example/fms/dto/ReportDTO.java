@@ -0,0 +1,16 @@
+package com.example.fms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+public class ReportDTO {
+    private String name;
+    private BigDecimal total;
+}
@@ -0,0 +1,18 @@
+package com.example.fms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+public class TransactionBatchDTO {
+    //true - все или ничего, false - сохраняются только корректные строки
+    private boolean atomic = true;
+    private List<TransactionBatchItemDTO> items = new ArrayList<>();
+}
@@ -0,0 +1,34 @@
+package com.example.fms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+public class TransactionRowDTO {
+    private Long id;
+    private LocalDateTime dateCreated;
+    private String action;
+    private BigDecimal balance;
+    private String description;
+    private Long fromAccountId;
+    private String fromAccount;
+    private Long toAccountId;
+    private String toAccount;
+    private Long categoryId;
+    private String category;
+    private Long projectId;
+    private String project;
+    private Long counterpartyId;
+    private String counterparty;
+    private Long departmentId;
+    private String department;
+    private Long userId;
+    private String user;
+}
@@ -0,0 +1,22 @@
+package com.example.fms.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+public class UserRowDTO {
+    private Long id;
+    private LocalDateTime dateCreated;
+    private String email;
+    private String name;
+    private String surname;
+    private String position;
+    private boolean active;
+    private String role;
+}
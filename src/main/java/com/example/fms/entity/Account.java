@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.*;
+import org.hibernate.annotations.Cache;
 
 import javax.persistence.*;
 import javax.persistence.Entity;
@@ -19,16 +20,9 @@ import java.math.BigDecimal;
 
 @Entity
 @Table(name = "account")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "account")
 @JsonInclude
 @SQLDelete(sql = "UPDATE account SET is_deleted=true WHERE id=?")
-@FilterDef(
-        name = "deletedAccountFilter",
-        parameters = @ParamDef(name = "isDeleted", type = "boolean")
-)
-@Filter(
-        name = "deletedAccountFilter",
-        condition = "is_deleted = :isDeleted"
-)
 public class Account extends BaseEntity{
 
     @Column(name = "name", nullable = false)
@@ -0,0 +1,46 @@
+package com.example.fms.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@EqualsAndHashCode(callSuper = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+@Entity
+@Table(name = "audit_outbox")
+public class AuditOutbox extends BaseEntity {
+
+    @Column(name = "tablee")
+    private String table;
+
+    @Column(name = "action")
+    private String action;
+
+    //id или email автора, запись в journal получает ссылку на пользователя при переносе
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "email")
+    private String email;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public AuditOutbox(String table, String action, Long userId, String email, LocalDateTime dateCreated) {
+        this.table = table;
+        this.action = action;
+        this.userId = userId;
+        this.email = email;
+        setDateCreated(dateCreated);
+    }
+}
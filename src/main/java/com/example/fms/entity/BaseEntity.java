@@ -3,6 +3,8 @@ package com.example.fms.entity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -13,7 +15,14 @@ import java.time.LocalDateTime;
 @MappedSuperclass
 public class BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // своя последовательность на каждую таблицу, id выдаются блоками по 50 - иначе нет batch insert
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fms_sequence")
+    @GenericGenerator(name = "fms_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "prefer_sequence_per_entity", value = "true"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private Long id;
     private LocalDateTime dateCreated;
     private LocalDateTime dateUpdated;
@@ -23,7 +32,8 @@ public class BaseEntity {
 
     @PrePersist
     public void persistCreate(){
-        this.dateCreated = LocalDateTime.now();
+        if (this.dateCreated == null)
+            this.dateCreated = LocalDateTime.now();
     }
 
     @PreUpdate
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.*;
+import org.hibernate.annotations.Cache;
 
 import javax.persistence.*;
 import javax.persistence.Entity;
@@ -18,16 +19,9 @@ import javax.persistence.Table;
 
 @Entity
 @Table(name = "category")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category")
 @JsonInclude
 @SQLDelete(sql = "UPDATE category SET is_deleted=true WHERE id=?")
-@FilterDef(
-		name = "deletedCategoryFilter",
-		parameters = @ParamDef(name = "isDeleted", type = "boolean")
-)
-@Filter(
-		name = "deletedCategoryFilter",
-		condition = "is_deleted = :isDeleted"
-)
 public class Category extends BaseEntity{
 
 	@Column(name = "name", nullable = false)
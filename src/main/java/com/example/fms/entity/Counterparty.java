@@ -19,16 +19,9 @@ import java.math.BigDecimal;
 
 @Entity
 @Table(name = "counterparty")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "counterparty")
 @JsonInclude
 @SQLDelete(sql = "UPDATE counterparty SET is_deleted=true WHERE id=?")
-@FilterDef(
-        name = "deletedCounterpartyFilter",
-        parameters = @ParamDef(name = "isDeleted", type = "boolean")
-)
-@Filter(
-        name = "deletedCounterpartyFilter",
-        condition = "is_deleted = :isDeleted"
-)
 public class Counterparty extends BaseEntity {
 
     @Column(name = "name", length = 25, nullable = false, unique = true)
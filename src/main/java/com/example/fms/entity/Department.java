@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.*;
+import org.hibernate.annotations.Cache;
 
 import javax.persistence.*;
 import javax.persistence.Entity;
@@ -19,16 +20,9 @@ import java.util.List;
 
 @Entity
 @Table(name = "department")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "department")
 @JsonInclude
 @SQLDelete(sql = "UPDATE department SET is_deleted=true WHERE id=?")
-@FilterDef(
-		name = "deletedDepartmentFilter",
-		parameters = @ParamDef(name = "isDeleted", type = "boolean")
-)
-@Filter(
-		name = "deletedDepartmentFilter",
-		condition = "is_deleted = :isDeleted"
-)
 public class Department extends BaseEntity{
 
 	@Column(name = "name", nullable = false)
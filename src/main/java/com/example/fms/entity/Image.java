@@ -1,5 +1,6 @@
 package com.example.fms.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,5 +20,15 @@ public class Image extends BaseEntity {
     private String format;
     @Column(name = "url", nullable = false)
     private String url;
+    //sha-256 содержимого: одинаковые файлы хранятся один раз
+    @JsonIgnore
+    @Column(name = "hash", unique = true, length = 64)
+    private String hash;
+    //ключ файла в ImageStorage
+    @JsonIgnore
+    @Column(name = "storage_key")
+    private String storageKey;
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
 }
 
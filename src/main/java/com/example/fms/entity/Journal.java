@@ -15,7 +15,7 @@ import javax.persistence.*;
 @NoArgsConstructor
 
 @Entity
-@Table(name = "journal")
+@Table(name = "journal", indexes = @Index(name = "idx_journal_feed", columnList = "is_deleted, dateCreated, id"))
 @JsonInclude
 public class Journal extends BaseEntity{
     @ManyToOne
@@ -0,0 +1,5 @@
+package com.example.fms.entity;
+
+public enum MailStatus {
+    PENDING, SENDING, SENT, DEAD
+}
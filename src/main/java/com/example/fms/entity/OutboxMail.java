@@ -0,0 +1,53 @@
+package com.example.fms.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@EqualsAndHashCode(callSuper = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+@Entity
+@Table(name = "mail_outbox", indexes = @Index(name = "idx_mail_outbox_due", columnList = "status, next_attempt_at"))
+public class OutboxMail extends BaseEntity {
+
+    @Column(name = "to_email", nullable = false)
+    private String toEmail;
+
+    @Column(name = "subject")
+    private String subject;
+
+    @Column(name = "text", length = 4000)
+    private String text;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 10, nullable = false)
+    private MailStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    //метка разбора, которым письмо забрано в отправку
+    @Column(name = "claim", length = 36)
+    private String claim;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public OutboxMail(String toEmail, String subject, String text) {
+        this.toEmail = toEmail;
+        this.subject = subject;
+        this.text = text;
+        this.status = MailStatus.PENDING;
+        this.nextAttemptAt = LocalDateTime.now();
+    }
+}
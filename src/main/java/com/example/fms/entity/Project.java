@@ -18,16 +18,9 @@ import javax.persistence.Table;
 
 @Entity
 @Table(name = "project")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "project")
 @JsonInclude
 @SQLDelete(sql = "UPDATE project SET is_deleted=true WHERE id=?")
-@FilterDef(
-        name = "deletedProjectFilter",
-        parameters = @ParamDef(name = "isDeleted", type = "boolean")
-)
-@Filter(
-        name = "deletedProjectFilter",
-        condition = "is_deleted = :isDeleted"
-)
 public class Project extends BaseEntity{
 
     @Column(name = "name", length = 50, nullable = false)
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.*;
+import org.hibernate.annotations.Cache;
 
 import javax.persistence.*;
 import javax.persistence.CascadeType;
@@ -23,16 +24,9 @@ import java.util.Locale;
 @EqualsAndHashCode(callSuper = true)
 @Entity
 @Table(name = "staff")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "staff")
 @JsonInclude
 @SQLDelete(sql = "UPDATE staff SET is_deleted=true WHERE id=?")
-@FilterDef(
-		name = "deletedStaffFilter",
-		parameters = @ParamDef(name = "isDeleted", type = "boolean")
-)
-@Filter(
-		name = "deletedStaffFilter",
-		condition = "is_deleted = :isDeleted"
-)
 public class Staff extends BaseEntity {
 
 	@Column(name = "name", nullable = false)
@@ -15,7 +15,12 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 
 @Entity
-@Table(name = "transaction")
+@NamedEntityGraph(name = "Transaction.list", attributeNodes = {
+        @NamedAttributeNode("fromAccount"), @NamedAttributeNode("toAccount"), @NamedAttributeNode("category"),
+        @NamedAttributeNode(value = "user", subgraph = "user"), @NamedAttributeNode("project"),
+        @NamedAttributeNode("counterparty"), @NamedAttributeNode("department")},
+        subgraphs = @NamedSubgraph(name = "user", attributeNodes = {@NamedAttributeNode("role"), @NamedAttributeNode("image")}))
+@Table(name = "transaction", indexes = @Index(name = "idx_transaction_feed", columnList = "is_deleted, dateCreated, id"))
 @JsonInclude
 public class Transaction extends BaseEntity{
 
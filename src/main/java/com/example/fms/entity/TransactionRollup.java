@@ -0,0 +1,49 @@
+package com.example.fms.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+//дневные суммы по транзакциям для отчетов, отсутствующие ссылки (перевод без категории и т.п.) хранятся как 0
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+
+@Entity
+@Table(name = "transaction_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_transaction_rollup_key",
+                columnNames = {"day", "department_id", "category_id", "project_id", "counterparty_id", "action"}),
+        indexes = @Index(name = "idx_transaction_rollup_action_day", columnList = "action, day"))
+public class TransactionRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "department_id", nullable = false)
+    private Long departmentId;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(name = "counterparty_id", nullable = false)
+    private Long counterpartyId;
+
+    @Column(name = "action", length = 25, nullable = false)
+    private String action;
+
+    @Column(name = "total", nullable = false)
+    private BigDecimal total;
+
+    @Column(name = "tx_count", nullable = false)
+    private Long count;
+}
@@ -11,7 +11,9 @@ import org.hibernate.annotations.*;
 import javax.persistence.*;
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.Table;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @EqualsAndHashCode(callSuper = true)
@@ -50,6 +52,11 @@ public class User extends BaseEntity{
     @Column(name = "activation_code")
     private String activationCode;
 
+    //токены, выпущенные не позже этого момента, не доверяют своим claims (роль, отделы)
+    @JsonIgnore
+    @Column(name = "tokens_valid_after")
+    private LocalDateTime tokensValidAfter;
+
     @ManyToOne
     @JoinColumn(name = "image_id")
     private Image image;
@@ -57,7 +64,8 @@ public class User extends BaseEntity{
     @ManyToMany(cascade = CascadeType.ALL)
     @JoinTable(name = "user_department", joinColumns={
             @JoinColumn(name = "user_id") }, inverseJoinColumns = {
-            @JoinColumn(name = "department_id") })
+            @JoinColumn(name = "department_id") },
+            indexes = @Index(name = "idx_user_department_user", columnList = "user_id, department_id"))
     private List<Department> departments;
 
     @JsonIgnore
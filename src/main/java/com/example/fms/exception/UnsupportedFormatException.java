@@ -0,0 +1,13 @@
+package com.example.fms.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnsupportedFormatException extends RuntimeException{
+    private static final long serialVersionUID = 1L;
+
+    public UnsupportedFormatException(String message) {
+        super(message);
+    }
+}
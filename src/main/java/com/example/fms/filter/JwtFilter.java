@@ -1,11 +1,14 @@
 package com.example.fms.filter;
 
+import com.example.fms.security.AuthenticatedUser;
+import com.example.fms.security.TokenRevocations;
 import com.example.fms.service.MyUserDetailsService;
 import com.example.fms.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -21,23 +24,18 @@ public class JwtFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
     @Autowired
     private MyUserDetailsService myUserDetailsService;
+    @Autowired
+    private TokenRevocations tokenRevocations;
 
     @Override
     protected void doFilterInternal(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, FilterChain filterChain) throws ServletException, IOException {
         String authHeader = httpServletRequest.getHeader("Authorization");
 
-        String token = null;
-        String userName = null;
-
-        if(authHeader != null && authHeader.startsWith("Bearer ")){
-            token = authHeader.substring(7); //обрежет "Bearer "
-            userName = jwtUtil.extractUsername(token);
-        }
-
-        if(userName != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = myUserDetailsService.loadUserByUsername(userName);
+        if(authHeader != null && authHeader.startsWith("Bearer ") && SecurityContextHolder.getContext().getAuthentication() == null){
+            Claims claims = jwtUtil.parse(authHeader.substring(7)); //обрежет "Bearer "
+            AuthenticatedUser userDetails = claims == null ? null : authenticate(claims);
 
-            if(jwtUtil.validateToken(token, userDetails)){
+            if(userDetails != null){
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails, null, userDetails.getAuthorities());
@@ -49,4 +47,17 @@ public class JwtFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(httpServletRequest, httpServletResponse);
     }
+
+    // пользователь берется из claims; в базу (через кэш) идем только для старых токенов
+    // и для токенов, выпущенных до изменения роли или отделов
+    private AuthenticatedUser authenticate(Claims claims) {
+        AuthenticatedUser user = jwtUtil.toUser(claims);
+        if (user != null && !tokenRevocations.isStale(user.getId(), claims.getIssuedAt()))
+            return tokenRevocations.isBlocked(user.getId()) ? null : user;
+        try {
+            return myUserDetailsService.loadUserByUsername(claims.getSubject());
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
 }
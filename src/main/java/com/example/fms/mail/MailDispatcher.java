@@ -0,0 +1,152 @@
+package com.example.fms.mail;
+
+import com.example.fms.entity.MailStatus;
+import com.example.fms.entity.OutboxMail;
+import com.example.fms.repository.OutboxMailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+// Письма сохраняются в mail_outbox в транзакции запроса, отправляет их этот диспетчер: по расписанию
+// забирает созревшие записи и раздаёт пачками пулу из fms.mail.workers потоков, каждая пачка уходит
+// через одно SMTP-соединение. Неудачная отправка повторяется с удвоением паузы, после max-attempts - DEAD.
+@Component
+public class MailDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(MailDispatcher.class);
+
+    @Autowired
+    private OutboxMailRepository outboxMailRepository;
+    @Autowired
+    private JavaMailSender javaMailSender;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${spring.mail.username:}")
+    private String from;
+    @Value("${fms.mail.workers:4}")
+    private int workers;
+    @Value("${fms.mail.chunk-size:20}")
+    private int chunkSize;
+    @Value("${fms.mail.max-attempts:8}")
+    private int maxAttempts;
+    @Value("${fms.mail.retry-delay-ms:30000}")
+    private long retryDelay;
+    @Value("${fms.mail.max-retry-delay-ms:3600000}")
+    private long maxRetryDelay;
+    @Value("${fms.mail.sending-timeout-ms:600000}")
+    private long sendingTimeout;
+
+    private ThreadPoolTaskExecutor executor;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("mail-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${fms.mail.poll-interval-ms:1000}")
+    public void dispatch() {
+        // забираем не больше, чем пул успеет взять, остальное ждёт в базе
+        int free = workers - executor.getActiveCount() - executor.getThreadPoolExecutor().getQueue().size();
+        if (free <= 0)
+            return;
+        LocalDateTime now = LocalDateTime.now();
+        String claim = UUID.randomUUID().toString();
+        List<OutboxMail> mails = transactionTemplate.execute(status -> {
+            outboxMailRepository.releaseStale(now.minus(sendingTimeout, ChronoUnit.MILLIS));
+            List<Long> ids = outboxMailRepository.findDueIds(now, PageRequest.of(0, free * chunkSize));
+            if (ids.isEmpty())
+                return Collections.<OutboxMail>emptyList();
+            outboxMailRepository.claim(ids, claim, now);
+            return outboxMailRepository.findAllByClaim(claim);
+        });
+        for (int i = 0; i < mails.size(); i += chunkSize) {
+            List<OutboxMail> chunk = new ArrayList<>(mails.subList(i, Math.min(i + chunkSize, mails.size())));
+            executor.execute(() -> send(chunk));
+        }
+    }
+
+    private void send(List<OutboxMail> mails) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[mails.size()];
+        for (int i = 0; i < messages.length; i++)
+            messages[i] = message(mails.get(i));
+
+        Map<Object, Exception> failed = new HashMap<>();
+        try {
+            javaMailSender.send(messages);
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty())
+                Arrays.stream(messages).forEach(message -> failed.put(message, e));
+            failed.putAll(e.getFailedMessages());
+        } catch (MailException e) {
+            Arrays.stream(messages).forEach(message -> failed.put(message, e));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < messages.length; i++) {
+            OutboxMail mail = mails.get(i);
+            mail.setClaim(null);
+            Exception error = failed.get(messages[i]);
+            if (error == null) {
+                mail.setStatus(MailStatus.SENT);
+                mail.setLastError(null);
+                continue;
+            }
+            mail.setAttempts(mail.getAttempts() + 1);
+            mail.setLastError(truncate(error.getMessage()));
+            if (mail.getAttempts() >= maxAttempts) {
+                mail.setStatus(MailStatus.DEAD);
+                log.error("Mail id {} to {} is dead after {} attempts: {}", mail.getId(), mail.getToEmail(),
+                        mail.getAttempts(), mail.getLastError());
+            } else {
+                long delay = Math.min(retryDelay << Math.min(mail.getAttempts() - 1, 30), maxRetryDelay);
+                mail.setStatus(MailStatus.PENDING);
+                mail.setNextAttemptAt(now.plus(delay, ChronoUnit.MILLIS));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> outboxMailRepository.saveAll(mails));
+    }
+
+    private SimpleMailMessage message(OutboxMail mail) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getText());
+        message.setTo(mail.getToEmail());
+        message.setFrom(from);
+        return message;
+    }
+
+    private static String truncate(String value) {
+        return value == null || value.length() <= 1000 ? value : value.substring(0, 1000);
+    }
+}
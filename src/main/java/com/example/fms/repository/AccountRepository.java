@@ -2,18 +2,27 @@ package com.example.fms.repository;
 
 import com.example.fms.entity.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Long> {
-    List<Account> findAllByOrderByDateCreatedDesc();
-    List<Account> findAllByNameContainingIgnoringCase(String name);
-    List<Account> findAllByBalanceLessThanEqual(BigDecimal balance);
-    List<Account> findAllByBalanceGreaterThanEqual(BigDecimal balance);
-    List<Account> findAllByDateCreatedBefore(LocalDateTime before);
-    List<Account> findAllByDateCreatedAfter(LocalDateTime after);
+public interface AccountRepository extends JpaRepository<Account, Long>, JpaSpecificationExecutor<Account> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id in :ids order by a.id")
+    List<Account> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    //изменение баланса одним UPDATE: проверка овердрафта в том же запросе, без загрузки сущности
+    @Modifying
+    @Query("update Account a set a.balance = a.balance + :delta, a.dateUpdated = current_timestamp where a.id = :id and (:delta >= 0 or a.balance + :delta >= 0)")
+    int addToBalance(@Param("id") Long id, @Param("delta") BigDecimal delta);
 }
@@ -0,0 +1,30 @@
+package com.example.fms.repository;
+
+import com.example.fms.entity.AuditOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AuditOutboxRepository extends JpaRepository<AuditOutbox, Long> {
+
+    //записи, исчерпавшие попытки, остаются в таблице как dead letter
+    @Query("select a.id from AuditOutbox a where a.attempts < :maxAttempts order by a.id")
+    List<Long> findDueIds(@Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    //строки, которые уже переносит другой экземпляр, пропускаются (lock timeout -2 = skip locked)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select a from AuditOutbox a where a.id in :ids order by a.id")
+    List<AuditOutbox> lockAllById(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update AuditOutbox a set a.attempts = a.attempts + 1, a.lastError = :error where a.id = :id")
+    int failed(@Param("id") Long id, @Param("error") String error);
+}
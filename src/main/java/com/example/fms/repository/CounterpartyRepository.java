@@ -2,15 +2,16 @@ package com.example.fms.repository;
 
 import com.example.fms.entity.Counterparty;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
+import javax.persistence.QueryHint;
 import java.util.List;
 
 @Repository
-public interface CounterpartyRepository extends JpaRepository<Counterparty, Long> {
-    List<Counterparty> findAllByOrderByDateCreatedDesc();
-    List<Counterparty> findAllByNameContainingIgnoringCase(String name);
-    List<Counterparty> findAllByDateCreatedBefore(LocalDateTime before);
-    List<Counterparty> findAllByDateCreatedAfter(LocalDateTime after);
+public interface CounterpartyRepository extends JpaRepository<Counterparty, Long>, JpaSpecificationExecutor<Counterparty> {
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Counterparty> findAll();
 }
@@ -2,8 +2,18 @@ package com.example.fms.repository;
 
 import com.example.fms.entity.Image;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface ImageRepository extends JpaRepository<Image, Long> {
+    Image findByHash(String hash);
+
+    @Transactional
+    @Modifying
+    @Query("update Image i set i.thumbnailUrl = :url where i.id = :id")
+    int setThumbnailUrl(@Param("id") Long id, @Param("url") String url);
 }
@@ -0,0 +1,35 @@
+package com.example.fms.repository;
+
+import com.example.fms.entity.OutboxMail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxMailRepository extends JpaRepository<OutboxMail, Long> {
+
+    @Query("select m.id from OutboxMail m where m.status = com.example.fms.entity.MailStatus.PENDING " +
+            "and m.nextAttemptAt <= :now order by m.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    //условие на статус не даёт двум экземплярам забрать одно письмо
+    @Modifying
+    @Query("update OutboxMail m set m.status = com.example.fms.entity.MailStatus.SENDING, m.claim = :claim, " +
+            "m.dateUpdated = :now where m.id in :ids and m.status = com.example.fms.entity.MailStatus.PENDING")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claim") String claim, @Param("now") LocalDateTime now);
+
+    List<OutboxMail> findAllByClaim(String claim);
+
+    //письма, зависшие в SENDING после падения экземпляра, возвращаются в очередь
+    @Modifying
+    @Query("update OutboxMail m set m.status = com.example.fms.entity.MailStatus.PENDING, m.claim = null " +
+            "where m.status = com.example.fms.entity.MailStatus.SENDING and m.dateUpdated < :before")
+    int releaseStale(@Param("before") LocalDateTime before);
+}
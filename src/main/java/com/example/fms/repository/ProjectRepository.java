@@ -1,17 +1,17 @@
 package com.example.fms.repository;
 
-import com.example.fms.entity.Department;
 import com.example.fms.entity.Project;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
+import javax.persistence.QueryHint;
 import java.util.List;
 
 @Repository
-public interface ProjectRepository extends JpaRepository<Project, Long> {
-    List<Project> findAllByOrderByDateCreatedDesc();
-    List<Project> findAllByNameContainingIgnoringCase(String name);
-    List<Project> findAllByDateCreatedAfter(LocalDateTime after);
-    List<Project> findAllByDateCreatedBefore(LocalDateTime before);
+public interface ProjectRepository extends JpaRepository<Project, Long>, JpaSpecificationExecutor<Project> {
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Project> findAll();
 }
@@ -2,12 +2,17 @@ package com.example.fms.repository;
 
 import com.example.fms.entity.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Role> findAllByOrderByDateCreatedDesc();
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Role findByName(String name);
 }
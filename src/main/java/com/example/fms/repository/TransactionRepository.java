@@ -1,27 +1,61 @@
 package com.example.fms.repository;
 
+import com.example.fms.dto.ProfitDTO;
+import com.example.fms.dto.ReportDTO;
 import com.example.fms.entity.Transaction;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import javax.persistence.LockModeType;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    List<Transaction> findAllByDeletedOrderByDateCreatedDesc(boolean isDeleted);
-    List<Transaction> findAllByActionContainingIgnoringCase(String action);
-    List<Transaction> findAllByDeletedAndActionContainingIgnoringCase(boolean isDeleted, String action);
-    List<Transaction> findAllByDeletedAndActionContainingAndDateCreatedAfterAndDateCreatedBefore(boolean isDeleted, String action, LocalDateTime dateAfter, LocalDateTime dateBefore);
-    List<Transaction> findAllByUserId(Long userId);
-    List<Transaction> findAllByFromAccountId(Long accountId);
-    List<Transaction> findAllByToAccountId(Long accountId);
-    List<Transaction> findAllByCategoryId(Long categoryId);
-    List<Transaction> findAllByBalanceGreaterThanEqual(BigDecimal balance);
-    List<Transaction> findAllByBalanceLessThanEqual(BigDecimal balance);
-    List<Transaction> findAllByDateCreatedAfter(LocalDateTime after);
-    List<Transaction> findAllByDateCreatedBefore(LocalDateTime before);
-    List<Transaction> findAllByProjectId(Long projectId);
-    List<Transaction> findAllByCounterpartyId(Long counterpartyId);
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
+
+    //счета, категория, автор и прочие связи страницы приходят одним запросом с join, а не отдельным select на каждую строку
+    @Override
+    @EntityGraph("Transaction.list")
+    Page<Transaction> findAll(Specification<Transaction> spec, Pageable pageable);
+
+    boolean existsByDeletedFalse();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Transaction t where t.id = :id")
+    Optional<Transaction> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("select new com.example.fms.dto.ReportDTO(c.name, sum(t.balance)) from Category c " +
+            "left join Transaction t on t.category = c and t.deleted = false and t.action = :action " +
+            "and t.dateCreated > :after and t.dateCreated >= :from and t.dateCreated < :to group by c.id, c.name")
+    List<ReportDTO> sumByCategory(@Param("action") String action, @Param("after") LocalDateTime after,
+                                  @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select new com.example.fms.dto.ReportDTO(p.name, sum(t.balance)) from Project p " +
+            "left join Transaction t on t.project = p and t.deleted = false and t.action = :action " +
+            "and t.dateCreated > :after and t.dateCreated >= :from and t.dateCreated < :to group by p.id, p.name")
+    List<ReportDTO> sumByProject(@Param("action") String action, @Param("after") LocalDateTime after,
+                                 @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select new com.example.fms.dto.ReportDTO(c.name, sum(t.balance)) from Counterparty c " +
+            "left join Transaction t on t.counterparty = c and t.deleted = false and t.action = :action " +
+            "and t.dateCreated > :after and t.dateCreated >= :from and t.dateCreated < :to group by c.id, c.name")
+    List<ReportDTO> sumByCounterparty(@Param("action") String action, @Param("after") LocalDateTime after,
+                                      @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select new com.example.fms.dto.ProfitDTO(t.department.id, " +
+            "sum(case when t.action = 'INCOME' then t.balance else 0 end), " +
+            "sum(case when t.action = 'EXPENSE' then t.balance else 0 end)) from Transaction t " +
+            "where t.deleted = false and t.action in ('INCOME', 'EXPENSE') " +
+            "and t.dateCreated > :after and t.dateCreated >= :from and t.dateCreated < :to group by t.department.id")
+    List<ProfitDTO> profitByDepartment(@Param("after") LocalDateTime after, @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
 }
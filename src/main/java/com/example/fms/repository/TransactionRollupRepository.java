@@ -0,0 +1,76 @@
+package com.example.fms.repository;
+
+import com.example.fms.dto.ProfitDTO;
+import com.example.fms.dto.ReportDTO;
+import com.example.fms.entity.TransactionRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface TransactionRollupRepository extends JpaRepository<TransactionRollup, Long> {
+
+    //строка rollup остается заблокированной до commit, проводки с тем же ключом (день, отдел, категория...) идут по очереди
+    @Modifying
+    @Query(value = "insert into transaction_rollup (day, department_id, category_id, project_id, counterparty_id, action, total, tx_count) " +
+            "values (:day, :departmentId, :categoryId, :projectId, :counterpartyId, :action, :total, :count) " +
+            "on conflict (day, department_id, category_id, project_id, counterparty_id, action) do update " +
+            "set total = transaction_rollup.total + excluded.total, tx_count = transaction_rollup.tx_count + excluded.tx_count",
+            nativeQuery = true)
+    void upsert(@Param("day") LocalDate day, @Param("departmentId") Long departmentId, @Param("categoryId") Long categoryId,
+                @Param("projectId") Long projectId, @Param("counterpartyId") Long counterpartyId, @Param("action") String action,
+                @Param("total") BigDecimal total, @Param("count") long count);
+
+    //проводки ждут, пока идет пересборка, иначе их дельты потеряются
+    @Modifying
+    @Query(value = "lock table transaction in share mode", nativeQuery = true)
+    void lockTransactions();
+
+    //после lockTransactions: пересборки и стартовое заполнение идут по одной
+    @Modifying
+    @Query(value = "lock table transaction_rollup in exclusive mode", nativeQuery = true)
+    void lockRollup();
+
+    @Query(value = "select exists (select 1 from transaction_rollup)", nativeQuery = true)
+    boolean anyRows();
+
+    @Modifying
+    @Query(value = "delete from transaction_rollup", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = "insert into transaction_rollup (day, department_id, category_id, project_id, counterparty_id, action, total, tx_count) " +
+            "select cast(date_created as date), coalesce(departament_id, 0), coalesce(category_id, 0), coalesce(project_id, 0), " +
+            "coalesce(counterparty_id, 0), action, sum(balance), count(*) from transaction where is_deleted = false " +
+            "group by cast(date_created as date), coalesce(departament_id, 0), coalesce(category_id, 0), coalesce(project_id, 0), " +
+            "coalesce(counterparty_id, 0), action",
+            nativeQuery = true)
+    int insertFromTransactions();
+
+    @Query("select new com.example.fms.dto.ReportDTO(c.name, sum(r.total)) from Category c " +
+            "left join TransactionRollup r on r.categoryId = c.id and r.action = :action " +
+            "and r.day >= :from and r.day < :to group by c.id, c.name")
+    List<ReportDTO> sumByCategory(@Param("action") String action, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select new com.example.fms.dto.ReportDTO(p.name, sum(r.total)) from Project p " +
+            "left join TransactionRollup r on r.projectId = p.id and r.action = :action " +
+            "and r.day >= :from and r.day < :to group by p.id, p.name")
+    List<ReportDTO> sumByProject(@Param("action") String action, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select new com.example.fms.dto.ReportDTO(c.name, sum(r.total)) from Counterparty c " +
+            "left join TransactionRollup r on r.counterpartyId = c.id and r.action = :action " +
+            "and r.day >= :from and r.day < :to group by c.id, c.name")
+    List<ReportDTO> sumByCounterparty(@Param("action") String action, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select new com.example.fms.dto.ProfitDTO(r.day, r.departmentId, " +
+            "sum(case when r.action = 'INCOME' then r.total else 0 end), " +
+            "sum(case when r.action = 'EXPENSE' then r.total else 0 end)) from TransactionRollup r " +
+            "where r.action in ('INCOME', 'EXPENSE') and r.day >= :from and r.day < :to group by r.day, r.departmentId")
+    List<ProfitDTO> profitByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
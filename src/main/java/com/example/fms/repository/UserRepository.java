@@ -1,23 +1,31 @@
 package com.example.fms.repository;
 
 import com.example.fms.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
     User findByRoleName(String name);
     User findByActivationCode(String code);
     User findByEmail(String email);
+    @EntityGraph(attributePaths = {"role", "departments"})
     User findByEmailAndActive(String email, Boolean active);
-    List<User> findAllByOrderByDateCreatedDesc();
     List<User> findAllByActive(boolean isActive);
-    List<User> findAllByNameContainingIgnoringCase(String name);
-    List<User> findAllBySurnameContainingIgnoringCase(String surname);
-    List<User> findAllByPositionContainingIgnoringCase(String position);
-    List<User> findAllByDateCreatedAfter(LocalDateTime after);
-    List<User> findAllByDateCreatedBefore(LocalDateTime before);
+    List<User> findAllByEmailIn(Collection<String> emails);
+
+    @Query("select u.id from User u where u.active = :active")
+    List<Long> findIdsByActive(@Param("active") boolean active);
+
+    //пары (id, tokensValidAfter), изменённые позже since
+    @Query("select u.id, u.tokensValidAfter from User u where u.tokensValidAfter > :since")
+    List<Object[]> findTokensValidAfter(@Param("since") LocalDateTime since);
 }
@@ -0,0 +1,79 @@
+package com.example.fms.security;
+
+import com.example.fms.entity.Department;
+import com.example.fms.entity.User;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Снимок пользователя на момент аутентификации: id, роль и id отделов без обращений к базе.
+@Getter
+public class AuthenticatedUser implements UserDetails {
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String email;
+    private final String password;
+    private final String role;
+    private final Set<Long> departmentIds;
+    private final boolean active;
+
+    public AuthenticatedUser(Long id, String email, String password, String role, Set<Long> departmentIds, boolean active) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.role = role;
+        this.departmentIds = Collections.unmodifiableSet(departmentIds);
+        this.active = active;
+    }
+
+    public AuthenticatedUser(User user) {
+        this(user.getId(), user.getEmail(), user.getPassword(), user.getRole().getName(),
+                user.getDepartments() == null ? new HashSet<>() : user.getDepartments().stream()
+                        .map(Department::getId)
+                        .collect(Collectors.toSet()),
+                user.isActive());
+    }
+
+    public boolean isAdmin() {
+        return "ROLE_ADMIN".equals(role);
+    }
+
+    public boolean inDepartment(Department department) {
+        return department != null && departmentIds.contains(department.getId());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority(role));
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return active;
+    }
+}
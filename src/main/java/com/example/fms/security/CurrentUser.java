@@ -0,0 +1,25 @@
+package com.example.fms.security;
+
+import com.example.fms.service.MyUserDetailsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+// Сервисы получают email из контроллеров; если это текущий пользователь запроса, берём его из SecurityContext,
+// иначе из короткого кэша MyUserDetailsService.
+@Component
+public class CurrentUser {
+    @Autowired
+    private MyUserDetailsService myUserDetailsService;
+
+    public AuthenticatedUser get(String email) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser) {
+            AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+            if (principal.getEmail().equals(email))
+                return principal;
+        }
+        return myUserDetailsService.loadUserByUsername(email);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.fms.security;
+
+import com.example.fms.entity.User;
+import com.example.fms.repository.UserRepository;
+import com.example.fms.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Токен проверяется без базы, поэтому блокировки держим в памяти: заблокированные id перечитываются
+// по расписанию и обновляются сразу при block/unBlock. Если у пользователя поменялись роль или отделы,
+// момент изменения пишется в users.tokens_valid_after и перечитывается тем же refresh - после рестарта
+// и на других экземплярах токены, выпущенные раньше, тоже идут через MyUserDetailsService.
+@Component
+public class TokenRevocations {
+    @Autowired
+    private UserRepository userRepository;
+
+    private volatile Set<Long> blocked = ConcurrentHashMap.newKeySet();
+    private volatile Map<Long, Long> changedAt = new ConcurrentHashMap<>();
+    //до первой загрузки из базы claims не доверяем никому
+    private volatile boolean loaded;
+    //block/unBlock, сделанные пока refresh читает базу: выборка могла их не увидеть. Под локом this
+    private final Map<Long, Boolean> pendingBlocks = new HashMap<>();
+
+    @Scheduled(fixedDelayString = "${fms.security.blocked-refresh-ms:60000}")
+    public void refresh() {
+        synchronized (this) {
+            pendingBlocks.clear();
+        }
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ids.addAll(userRepository.findIdsByActive(false));
+
+        //изменения старше срока жизни токена уже ничего не отзывают
+        long since = System.currentTimeMillis() - JwtUtil.EXPIRATION_MS;
+        Map<Long, Long> changed = new ConcurrentHashMap<>();
+        for (Object[] row : userRepository.findTokensValidAfter(toLocalDateTime(since)))
+            changed.put((Long) row[0], toMillis((LocalDateTime) row[1]));
+
+        //локальные изменения, ещё не попавшие в выборку, не теряем; подмена под тем же локом, что и block/changed
+        synchronized (this) {
+            pendingBlocks.forEach((userId, block) -> {
+                if (block)
+                    ids.add(userId);
+                else ids.remove(userId);
+            });
+            changedAt.forEach((userId, time) -> {
+                if (time > since)
+                    changed.merge(userId, time, Math::max);
+            });
+
+            blocked = ids;
+            changedAt = changed;
+            loaded = true;
+        }
+    }
+
+    public synchronized void block(Long userId) {
+        blocked.add(userId);
+        pendingBlocks.put(userId, true);
+    }
+
+    public synchronized void unblock(Long userId) {
+        blocked.remove(userId);
+        pendingBlocks.put(userId, false);
+    }
+
+    //вызывать до сохранения пользователя: момент изменения уходит в базу вместе с новыми отделами
+    public synchronized void changed(User user) {
+        long now = System.currentTimeMillis();
+        user.setTokensValidAfter(toLocalDateTime(now));
+        changedAt.put(user.getId(), now);
+    }
+
+    public boolean isBlocked(Long userId) {
+        return blocked.contains(userId);
+    }
+
+    // iat в токене с точностью до секунды, поэтому токен того же момента тоже считаем устаревшим
+    public boolean isStale(Long userId, Date issuedAt) {
+        if (!loaded)
+            return true;
+        Long changed = changedAt.get(userId);
+        return changed != null && (issuedAt == null || issuedAt.getTime() / 1000 <= changed / 1000);
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return new Date(millis).toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -1,102 +1,45 @@
 package com.example.fms.service;
 
+import com.example.fms.audit.AuditJournal;
+import com.example.fms.audit.Journaled;
 import com.example.fms.dto.AccountDTO;
 import com.example.fms.entity.*;
 import com.example.fms.exception.ResourceNotFoundException;
 import com.example.fms.exception.ToMaintainDataIntegrityException;
 import com.example.fms.repository.AccountRepository;
-import com.example.fms.repository.JournalRepository;
-import com.example.fms.repository.UserRepository;
+import com.example.fms.specification.BaseSpecification;
+import com.example.fms.util.PageableUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import org.hibernate.Filter;
-import org.hibernate.Session;
-
-import javax.persistence.EntityManager;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
 
 @Service
 public class AccountServiceImpl implements AccountService {
     @Autowired
     private AccountRepository accountRepository;
     @Autowired
-    private JournalRepository journalRepository;
-    @Autowired
-    private UserRepository userRepository;
-    @Autowired
-    private EntityManager entityManager;
-
-    @Override
-    public List<Account> getAll(boolean isDeleted) {
-        Session session = entityManager.unwrap(Session.class);
-        Filter filter = session.enableFilter("deletedAccountFilter");
-        filter.setParameter("isDeleted", isDeleted);
-        List<Account> accounts = accountRepository.findAllByOrderByDateCreatedDesc();
-        session.disableFilter("deletedAccountFilter");
-        return accounts;
-    }
-
-    @Override
-    public Page<Account> getByPage(List<Account> list, Pageable pageable) {
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-
-        List<Account> output = new ArrayList<>();
-        if (start <= end) {
-            output = list.subList(start, end);
-        }
-        return new PageImpl<>(output, pageable, list.size());
-    }
-
-    @Override
-    public List<Account> getAllByName(String name) {
-        return accountRepository.findAllByNameContainingIgnoringCase(name);
-    }
-
-    @Override
-    public List<Account> getAllByBalanceLessThan(BigDecimal balance) {
-        return accountRepository.findAllByBalanceLessThanEqual(balance);
-    }
-
-    @Override
-    public List<Account> getAllByBalanceGreaterThan(BigDecimal balance) {
-        return accountRepository.findAllByBalanceGreaterThanEqual(balance);
-    }
-
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-    @Override
-    public List<Account> getAllByDateCreatedBefore(String before) {
-        return accountRepository.findAllByDateCreatedBefore(LocalDateTime.parse(before, formatter));
-    }
+    private AuditJournal auditJournal;
 
     @Override
-    public List<Account> getAllByDateCreatedAfter(String after) {
-        return accountRepository.findAllByDateCreatedAfter(LocalDateTime.parse(after, formatter));
+    public Page<Account> getAll(Specification<Account> filter, boolean isDeleted, Pageable pageable) {
+        Specification<Account> specification = Specification
+                .where(BaseSpecification.<Account>deleted(isDeleted))
+                .and(filter);
+        return accountRepository.findAll(specification, PageableUtil.withDefaultSort(pageable, Account.class));
     }
 
     @Override
+    @Journaled(table = "'ACCOUNT: ' + #accountDTO.name", action = "create")
     public ResponseEntity<Account> create(AccountDTO accountDTO, String userEmail) {
         Account account = new Account(accountDTO.getName(), accountDTO.getBalance());
         accountRepository.save(account);
 
-        Journal journal = new Journal();
-        journal.setTable("ACCOUNT: " + account.getName());
-        journal.setAction("create");
-        User user = userRepository.findByEmail(userEmail);
-        journal.setUser(user);
-        journal.setDeleted(false);
-        journalRepository.save(journal);
-
         return ResponseEntity.ok().body(account);
     }
 
@@ -110,6 +53,7 @@ public class AccountServiceImpl implements AccountService {
     }
 
     @Override
+    @Journaled(table = "'ACCOUNT: ' + #accountDTO.name", action = "update")
     public ResponseEntity<Account> updateAccountById(AccountDTO accountDTO, Long id, String userEmail){
         Account result = accountRepository.findById(id)
                 .map(account -> {
@@ -121,13 +65,6 @@ public class AccountServiceImpl implements AccountService {
                 })
                 .orElseThrow(()->new ResourceNotFoundException("Account id " + id + " not found!"));
             //на нулл не нужно проверять
-            Journal journal = new Journal();
-            journal.setTable("ACCOUNT: " + accountDTO.getName());
-            journal.setAction("update");
-            User user = userRepository.findByEmail(userEmail);
-            journal.setUser(user);
-            journal.setDeleted(false);
-            journalRepository.save(journal);
 
         return ResponseEntity.ok().body(result);
     }
@@ -146,12 +83,7 @@ public class AccountServiceImpl implements AccountService {
 
         accountRepository.deleteById(id);
 
-        Journal journal = new Journal();
-        journal.setTable("ACCOUNT: " + account.getName());
-        journal.setAction("delete");
-        journal.setUser(userRepository.findByEmail(userEmail));
-        journal.setDeleted(false);
-        journalRepository.save(journal);
+        auditJournal.record("ACCOUNT: " + account.getName(), "delete", userEmail);
 
         return new ResponseMessage(HttpStatus.OK.value(), "Account successfully deleted");
     }
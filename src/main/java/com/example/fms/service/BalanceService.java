@@ -0,0 +1,12 @@
+package com.example.fms.service;
+
+import com.example.fms.entity.Account;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+
+public interface BalanceService {
+    Map<Long, BigDecimal> lockBalances(Collection<Long> ids);
+    Map<Long, Account> applyDeltas(Map<Long, BigDecimal> deltas);
+}
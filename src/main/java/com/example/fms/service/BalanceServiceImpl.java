@@ -0,0 +1,109 @@
+package com.example.fms.service;
+
+import com.example.fms.entity.Account;
+import com.example.fms.exception.NotEnoughBalanceException;
+import com.example.fms.exception.ResourceNotFoundException;
+import com.example.fms.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Service
+public class BalanceServiceImpl implements BalanceService {
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @Value("${fms.posting.hot-accounts:}")
+    private Set<Long> hotAccounts;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, BigDecimal> lockBalances(Collection<Long> ids) {
+        Set<Long> locked = new TreeSet<>();
+        Set<Long> atomic = new TreeSet<>();
+        split(ids, locked, atomic);
+
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (Set<Long> group : Arrays.asList(locked, atomic)) {
+            if (group.isEmpty())
+                continue;
+            for (Account account : accountRepository.findAllByIdForUpdate(group)) {
+                entityManager.refresh(account);
+                balances.put(account.getId(), account.getBalance());
+            }
+        }
+        return balances;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Account> applyDeltas(Map<Long, BigDecimal> deltas) {
+        //сначала обычные счета, потом "горячие", внутри каждой группы по возрастанию id - единый порядок блокировок
+        Set<Long> locked = new TreeSet<>();
+        Set<Long> atomic = new TreeSet<>();
+        split(deltas.keySet(), locked, atomic);
+
+        Map<Long, Account> accounts = new HashMap<>();
+        if (!locked.isEmpty())
+            accounts.putAll(applyLocked(locked, deltas));
+        for (Long id : atomic)
+            accounts.put(id, applyAtomic(id, deltas.get(id)));
+        return accounts;
+    }
+
+    private void split(Collection<Long> ids, Set<Long> locked, Set<Long> atomic) {
+        for (Long id : ids) {
+            if (hotAccounts.contains(id))
+                atomic.add(id);
+            else locked.add(id);
+        }
+    }
+
+    private Map<Long, Account> applyLocked(Set<Long> ids, Map<Long, BigDecimal> deltas) {
+        //блокируем строки одним запросом в порядке id, чтобы параллельные проводки не ловили deadlock
+        Map<Long, Account> accounts = new HashMap<>();
+        for (Account account : accountRepository.findAllByIdForUpdate(ids)) {
+            //счет мог быть загружен до блокировки (например, вместе с транзакцией), перечитываем баланс
+            entityManager.refresh(account);
+            accounts.put(account.getId(), account);
+        }
+
+        for (Long id : ids) {
+            Account account = accounts.get(id);
+            if (account == null)
+                throw new ResourceNotFoundException("Account id " + id + " not found!");
+            BigDecimal delta = deltas.get(id);
+            BigDecimal balance = account.getBalance().add(delta);
+            if (delta.signum() < 0 && balance.signum() < 0)
+                throw new NotEnoughBalanceException("Not enough balance in account id " + account.getId() + "!");
+            account.setBalance(balance);
+        }
+        accountRepository.saveAll(accounts.values());
+        return accounts;
+    }
+
+    private Account applyAtomic(Long id, BigDecimal delta) {
+        if (accountRepository.addToBalance(id, delta) == 0) {
+            if (!accountRepository.existsById(id))
+                throw new ResourceNotFoundException("Account id " + id + " not found!");
+            throw new NotEnoughBalanceException("Not enough balance in account id " + id + "!");
+        }
+        //строка уже заблокирована нашим UPDATE, перечитываем результат в контекст
+        Account account = accountRepository.getOne(id);
+        entityManager.refresh(account);
+        return account;
+    }
+}
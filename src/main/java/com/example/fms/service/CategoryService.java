@@ -6,18 +6,14 @@ import com.example.fms.entity.ResponseMessage;
 import com.example.fms.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 public interface CategoryService {
     List<Category> getAll();
-    List<Category> getAll(boolean isDeleted);
-    Page<Category> getByPage(List<Category> list, Pageable pageable);
-    List<Category> getAllByNameContaining(String name);
-    List<Category> getAllByDateCreatedAfter(String after);
-    List<Category> getAllByDateCreatedBefore(String before);
+    Page<Category> getAll(Specification<Category> filter, boolean isDeleted, Pageable pageable);
 
     ResponseEntity<Category> addCategory(CategoryDTO categoryDTO, String userEmail);
 
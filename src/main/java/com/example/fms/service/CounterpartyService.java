@@ -5,17 +5,14 @@ import com.example.fms.entity.Counterparty;
 import com.example.fms.entity.ResponseMessage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
 
 public interface CounterpartyService {
     List<Counterparty> getAll();
-    List<Counterparty> getAll(boolean isDeleted);
-    Page<Counterparty> getByPage(List<Counterparty> list, Pageable pageable);
-    List<Counterparty> getAllByNameContaining(String name);
-    List<Counterparty> getAllByDateCreatedBefore(String before);
-    List<Counterparty> getAllByDateCreatedAfter(String after);
+    Page<Counterparty> getAll(Specification<Counterparty> filter, boolean isDeleted, Pageable pageable);
 
     ResponseEntity<Counterparty> addCounterparty (CounterpartyDTO counterpartyDTO, String userEmail);
 
@@ -1,25 +1,21 @@
 package com.example.fms.service;
 
+import com.example.fms.audit.AuditJournal;
+import com.example.fms.audit.Journaled;
 import com.example.fms.dto.CounterpartyDTO;
 import com.example.fms.entity.*;
 import com.example.fms.exception.ResourceNotFoundException;
 import com.example.fms.repository.CounterpartyRepository;
-import com.example.fms.repository.JournalRepository;
-import com.example.fms.repository.UserRepository;
-import org.hibernate.Filter;
-import org.hibernate.Session;
+import com.example.fms.specification.BaseSpecification;
+import com.example.fms.util.PageableUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import javax.persistence.EntityManager;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -27,11 +23,7 @@ public class CounterpartyServiceImpl implements CounterpartyService{
     @Autowired
     private CounterpartyRepository counterpartyRepository;
     @Autowired
-    private JournalRepository journalRepository;
-    @Autowired
-    private UserRepository userRepository;
-    @Autowired
-    private EntityManager entityManager;
+    private AuditJournal auditJournal;
 
     @Override
     public List<Counterparty> getAll() {
@@ -39,55 +31,19 @@ public class CounterpartyServiceImpl implements CounterpartyService{
     }
 
     @Override
-    public List<Counterparty> getAll(boolean isDeleted) {
-        Session session = entityManager.unwrap(Session.class);
-        Filter filter = session.enableFilter("deletedCounterpartyFilter");
-        filter.setParameter("isDeleted", isDeleted);
-        List<Counterparty> counterparties = counterpartyRepository.findAllByOrderByDateCreatedDesc();
-        session.disableFilter("deletedCounterpartyFilter");
-        return counterparties;
-    }
-
-    @Override
-    public Page<Counterparty> getByPage(List<Counterparty> list, Pageable pageable) {
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-
-        List<Counterparty> output = new ArrayList<>();
-        if (start <= end) {
-            output = list.subList(start, end);
-        }
-        return new PageImpl<>(output, pageable, list.size());
-    }
-
-    @Override
-    public List<Counterparty> getAllByNameContaining(String name) {
-        return counterpartyRepository.findAllByNameContainingIgnoringCase(name);
-    }
-
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-    @Override
-    public List<Counterparty> getAllByDateCreatedBefore(String before) {
-        return counterpartyRepository.findAllByDateCreatedBefore(LocalDateTime.parse(before, formatter));
-    }
-
-    @Override
-    public List<Counterparty> getAllByDateCreatedAfter(String after) {
-        return counterpartyRepository.findAllByDateCreatedAfter(LocalDateTime.parse(after, formatter));
+    public Page<Counterparty> getAll(Specification<Counterparty> filter, boolean isDeleted, Pageable pageable) {
+        Specification<Counterparty> specification = Specification
+                .where(BaseSpecification.<Counterparty>deleted(isDeleted))
+                .and(filter);
+        return counterpartyRepository.findAll(specification, PageableUtil.withDefaultSort(pageable, Counterparty.class));
     }
 
     @Override
+    @Journaled(table = "'COUNTERPARTY: ' + #counterpartyDTO.name", action = "create")
     public ResponseEntity<Counterparty> addCounterparty(CounterpartyDTO counterpartyDTO, String userEmail) {
         Counterparty counterparty = new Counterparty(counterpartyDTO.getName());
         counterpartyRepository.save(counterparty);
 
-        Journal journal = new Journal();
-        journal.setTable("COUNTERPARTY: " + counterpartyDTO.getName());
-        journal.setAction("create");
-        journal.setUser(userRepository.findByEmail(userEmail));
-        journal.setDeleted(false);
-        journalRepository.save(journal);
-
         return ResponseEntity.ok().body(counterparty);
     }
 
@@ -101,6 +57,7 @@ public class CounterpartyServiceImpl implements CounterpartyService{
     }
 
     @Override
+    @Journaled(table = "'COUNTERPARTY: ' + #counterpartyDTO.name", action = "update")
     public ResponseEntity<Counterparty> updateCounterpartyById(CounterpartyDTO counterpartyDTO, Long id, String userEmail) {
          Counterparty result = counterpartyRepository.findById(id)
                 .map(counterparty -> {
@@ -111,13 +68,6 @@ public class CounterpartyServiceImpl implements CounterpartyService{
                 })
                  .orElseThrow(()->new ResourceNotFoundException("Counterparty id " + id + " not found!"));
 
-            Journal journal = new Journal();
-            journal.setTable("COUNTERPARTY: " + counterpartyDTO.getName());
-            journal.setAction("update");
-            journal.setUser(userRepository.findByEmail(userEmail));
-            journal.setDeleted(false);
-            journalRepository.save(journal);
-
         return ResponseEntity.ok().body(result);
     }
 
@@ -130,12 +80,7 @@ public class CounterpartyServiceImpl implements CounterpartyService{
             throw new ResourceNotFoundException("Counterparty id " + id + " was deleted!");
 
         counterpartyRepository.deleteById(id);
-            Journal journal = new Journal();
-            journal.setTable("COUNTERPARTY: " + counterparty.getName());
-            journal.setAction("delete");
-            journal.setUser(userRepository.findByEmail(userEmail));
-            journal.setDeleted(false);
-            journalRepository.save(journal);
+            auditJournal.record("COUNTERPARTY: " + counterparty.getName(), "delete", userEmail);
 
         return new ResponseMessage(HttpStatus.OK.value(),"Counterparty successfully deleted");
     }
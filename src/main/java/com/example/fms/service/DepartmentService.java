@@ -7,21 +7,20 @@ import com.example.fms.entity.ResponseMessage;
 import com.example.fms.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
 
 public interface DepartmentService {
 
-    List<Department> getAll(boolean isDeleted);
-    Page<Department> getByPage(List<Department> list, Pageable pageable);
-    List<Department> getAllByNameContaining(String name);
-    List<Department> getAllByDateCreatedBefore(String before);
-    List<Department> getAllByDateCreatedAfter(String after);
+    Page<Department> getAll(Specification<Department> filter, boolean isDeleted, Pageable pageable);
     ResponseEntity<Department> addDepartment (DepartmentDTO departmentDTO, String userEmail);
 
     ResponseEntity<Department> getDepartmentById(Long id);
 
+    List<Department> getDepartmentsByIds(List<Long> ids);
+
     ResponseEntity<Department> updateDepartmentById(DepartmentDTO departmentDTO, Long id, String userEmail);
 
     ResponseMessage deleteDepartmentById(Long id, String userEmail);
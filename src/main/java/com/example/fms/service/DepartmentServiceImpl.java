@@ -1,77 +1,51 @@
 package com.example.fms.service;
 
+import com.example.fms.audit.AuditJournal;
+import com.example.fms.audit.Journaled;
 import com.example.fms.dto.DepartmentDTO;
 import com.example.fms.entity.*;
 import com.example.fms.exception.ResourceNotFoundException;
 import com.example.fms.repository.DepartmentRepository;
-import com.example.fms.repository.JournalRepository;
 import com.example.fms.repository.UserRepository;
-import org.hibernate.Filter;
-import org.hibernate.Session;
+import com.example.fms.security.TokenRevocations;
+import com.example.fms.specification.BaseSpecification;
+import com.example.fms.util.PageableUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import javax.persistence.EntityManager;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class DepartmentServiceImpl implements DepartmentService{
     @Autowired
     private DepartmentRepository departmentRepository;
     @Autowired
-    private JournalRepository journalRepository;
+    private AuditJournal auditJournal;
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private EntityManager entityManager;
-
-    @Override
-    public List<Department> getAll(boolean isDeleted) {
-        Session session = entityManager.unwrap(Session.class);
-        Filter filter = session.enableFilter("deletedDepartmentFilter");
-        filter.setParameter("isDeleted", isDeleted);
-        List<Department> departments = departmentRepository.findAllByOrderByDateCreatedDesc();
-        session.disableFilter("deletedDepartmentFilter");
-        return departments;
-   }
-
-    @Override
-    public Page<Department> getByPage(List<Department> list, Pageable pageable) {
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-
-        List<Department> output = new ArrayList<>();
-        if (start <= end) {
-            output = list.subList(start, end);
-        }
-        return new PageImpl<>(output, pageable, list.size());
-    }
-
-    @Override
-    public List<Department> getAllByNameContaining(String name) {
-        return departmentRepository.findAllByNameContainingIgnoringCase(name);
-    }
-
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-    @Override
-    public List<Department> getAllByDateCreatedBefore(String before) {
-        return departmentRepository.findAllByDateCreatedBefore(LocalDateTime.parse(before, formatter));
-    }
+    private MyUserDetailsService myUserDetailsService;
+    @Autowired
+    private TokenRevocations tokenRevocations;
 
     @Override
-    public List<Department> getAllByDateCreatedAfter(String after) {
-        return departmentRepository.findAllByDateCreatedAfter(LocalDateTime.parse(after, formatter));
+    public Page<Department> getAll(Specification<Department> filter, boolean isDeleted, Pageable pageable) {
+        Specification<Department> specification = Specification
+                .where(BaseSpecification.<Department>deleted(isDeleted))
+                .and(filter);
+        return departmentRepository.findAll(specification, PageableUtil.withDefaultSort(pageable, Department.class));
     }
 
     @Override
+    @Journaled(table = "'DEPARTMENT: ' + #departmentDTO.name", action = "create")
     public ResponseEntity<Department> addDepartment(DepartmentDTO departmentDTO, String userEmail) {
         Department department = new Department(departmentDTO.getName());
         departmentRepository.save(department);
@@ -80,14 +54,9 @@ public class DepartmentServiceImpl implements DepartmentService{
         List<Department> departmentList = user.getDepartments();
         departmentList.add(department);
         user.setDepartments(departmentList);
+        tokenRevocations.changed(user);
         userRepository.save(user);
-
-        Journal journal = new Journal();
-        journal.setTable("DEPARTMENT: " + departmentDTO.getName());
-        journal.setAction("create");
-        journal.setUser(userRepository.findByEmail(userEmail));
-        journal.setDeleted(false);
-        journalRepository.save(journal);
+        myUserDetailsService.evict(user.getEmail());
 
         return ResponseEntity.ok().body(department);
     }
@@ -101,7 +70,27 @@ public class DepartmentServiceImpl implements DepartmentService{
         return ResponseEntity.ok().body(department);
     }
 
+    // управляемые сущности текущей сессии: их можно ставить в связи с каскадом
     @Override
+    public List<Department> getDepartmentsByIds(List<Long> ids) {
+        //один IN-запрос вместо findById на каждый id
+        Map<Long, Department> departments = new HashMap<>();
+        for (Department department : departmentRepository.findAllById(ids))
+            departments.put(department.getId(), department);
+        List<Department> departmentList = new ArrayList<>();
+        for (Long id : ids) {
+            Department department = departments.get(id);
+            if (department == null)
+                throw new ResourceNotFoundException("Department id " + id + " not found!");
+            if (department.isDeleted())
+                throw new ResourceNotFoundException("Department id " + id + " was deleted!");
+            departmentList.add(department);
+        }
+        return departmentList;
+    }
+
+    @Override
+    @Journaled(table = "'DEPARTMENT: ' + #departmentDTO.name", action = "update")
     public ResponseEntity<Department> updateDepartmentById(DepartmentDTO departmentDTO, Long id, String userEmail) {
         Department result = departmentRepository.findById(id)
                 .map(department -> {
@@ -112,13 +101,6 @@ public class DepartmentServiceImpl implements DepartmentService{
                 })
                 .orElseThrow(()->new ResourceNotFoundException("Department id " + id + " not found!"));
 
-            Journal journal = new Journal();
-            journal.setTable("DEPARTMENT: " + departmentDTO.getName());
-            journal.setAction("update");
-            journal.setUser(userRepository.findByEmail(userEmail));
-            journal.setDeleted(false);
-            journalRepository.save(journal);
-
         return ResponseEntity.ok().body(result);
     }
 
@@ -130,12 +112,7 @@ public class DepartmentServiceImpl implements DepartmentService{
             throw new ResourceNotFoundException("Department id " + id + " was deleted!");
 
         departmentRepository.deleteById(id);
-            Journal journal = new Journal();
-            journal.setTable("DEPARTMENT: " + department.getName());
-            journal.setAction("delete");
-            journal.setUser(userRepository.findByEmail(userEmail));
-            journal.setDeleted(false);
-            journalRepository.save(journal);
+            auditJournal.record("DEPARTMENT: " + department.getName(), "delete", userEmail);
 
         return new ResponseMessage(HttpStatus.OK.value(), "Department successfully deleted");
     }
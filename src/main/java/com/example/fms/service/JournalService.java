@@ -1,24 +1,26 @@
 package com.example.fms.service;
 
+import com.example.fms.dto.FeedDTO;
+import com.example.fms.dto.JournalRowDTO;
 import com.example.fms.entity.Journal;
 import com.example.fms.entity.ResponseMessage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
 
 public interface JournalService {
     ResponseEntity<Journal> getByIdForAdmin(Long id);
     ResponseEntity<Journal> getByIdForUser(Long id, String email);
-    List<Journal> getAll(boolean isDeleted, String email);
-    Page<Journal> getByPage(List<Journal> list, Pageable pageable);
-    List<Journal> getAllByTable(String table);
-    List<Journal> getAllByAction(String action);
-    List<Journal> getAllByUser(Long userId);
-
-    List<Journal> getAllByDateCreatedAfter(String after);
-    List<Journal> getAllByDateCreatedBefore(String before);
+    Page<Journal> getAll(Specification<Journal> filter, boolean isDeleted, String email, Pageable pageable);
+    Page<JournalRowDTO> getRows(Specification<Journal> filter, boolean isDeleted, String email, Pageable pageable);
+    FeedDTO<Journal> getFeed(Specification<Journal> filter, boolean isDeleted, String email, String cursor, int size);
+    ResponseEntity<StreamingResponseBody> export(Specification<Journal> filter);
+    void exportRows(Specification<Journal> filter, OutputStream out) throws IOException;
 
     ResponseMessage deleteById(Long id, String userEmail);
 }
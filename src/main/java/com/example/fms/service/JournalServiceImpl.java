@@ -1,31 +1,60 @@
 package com.example.fms.service;
 
+import com.example.fms.audit.Journaled;
+import com.example.fms.dto.FeedDTO;
+import com.example.fms.dto.JournalExportDTO;
+import com.example.fms.dto.JournalRowDTO;
 import com.example.fms.entity.*;
 import com.example.fms.exception.AccessDenied;
 import com.example.fms.exception.ResourceNotFoundException;
 import com.example.fms.repository.JournalRepository;
-import com.example.fms.repository.UserRepository;
+import com.example.fms.security.AuthenticatedUser;
+import com.example.fms.security.CurrentUser;
+import com.example.fms.specification.BaseSpecification;
+import com.example.fms.specification.JournalSpecification;
+import com.example.fms.util.ExportUtil;
+import com.example.fms.util.FeedUtil;
+import com.example.fms.util.PageableUtil;
+import com.example.fms.util.ProjectionUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Selection;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 public class JournalServiceImpl implements JournalService {
     @Autowired
     private JournalRepository journalRepository;
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUser currentUser;
+    @Autowired
+    private EntityManager entityManager;
     @Autowired
     private JournalService journalService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${fms.export.fetch-size:1000}")
+    private int exportFetchSize;
 
     @Override
     public ResponseEntity<Journal> getByIdForAdmin(Long id){
@@ -41,78 +70,74 @@ public class JournalServiceImpl implements JournalService {
         if (journal.isDeleted())
             throw new ResourceNotFoundException("Journal id " + id + " was deleted!");
 
-        if (journal.getUser() != null) {
-            List<Department> departmentList = userRepository.findByEmail(email).getDepartments();
-            departmentList.retainAll(journal.getUser().getDepartments());
-
-            if (!departmentList.isEmpty())
-                return ResponseEntity.ok().body(journal);
-        }
+        //сравниваем id с отделами из токена, список отделов пользователя не трогаем
+        AuthenticatedUser user = currentUser.get(email);
+        if (journal.getUser() != null && journal.getUser().getDepartments().stream().anyMatch(user::inDepartment))
+            return ResponseEntity.ok().body(journal);
         throw new AccessDenied("You do not have access to this journal record");
     }
 
     @Override
-    public List<Journal> getAll(boolean isDeleted, String email) {
-        User user = userRepository.findByEmail(email);
-        if (isDeleted && !user.getRole().getName().equals("ROLE_ADMIN"))
-            throw new AccessDenied("Deleted journal records are not available for you");
-        List<Journal> journals = new ArrayList<>();
-        for (Journal journal : journalRepository.findAllByDeletedOrderByDateCreatedDesc(isDeleted)) {
-            List<Department> departments = user.getDepartments();
-            if (journal.getUser() != null){
-                departments.retainAll(journal.getUser().getDepartments());
-                if (!departments.isEmpty())
-                    journals.add(journal);
-            }
-        }
-        return journals;
-    }
-
-    @Override
-    public Page<Journal> getByPage(List<Journal> list, Pageable pageable) {
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-
-        List<Journal> output = new ArrayList<>();
-        if (start <= end) {
-            output = list.subList(start, end);
-        }
-        return new PageImpl<>(output, pageable, list.size());
+    public Page<Journal> getAll(Specification<Journal> filter, boolean isDeleted, String email, Pageable pageable) {
+        return journalRepository.findAll(visible(filter, isDeleted, email), PageableUtil.withDefaultSort(pageable, Journal.class));
     }
 
     @Override
-    public List<Journal> getAllByTable(String table) {
-        return journalRepository.findAllByTableContainingIgnoringCase(table);
+    public Page<JournalRowDTO> getRows(Specification<Journal> filter, boolean isDeleted, String email, Pageable pageable) {
+        return ProjectionUtil.findPage(entityManager, Journal.class, JournalRowDTO.class,
+                visible(filter, isDeleted, email), PageableUtil.withDefaultSort(pageable, Journal.class), root -> {
+                    Join<Journal, User> user = root.join("user", JoinType.LEFT);
+                    return new Selection<?>[]{root.get("id"), root.get("dateCreated"), root.get("table"),
+                            root.get("action"), user.get("id"), user.get("email")};
+                });
     }
 
     @Override
-    public List<Journal> getAllByAction(String action) {
-        return journalRepository.findAllByActionContainingIgnoringCase(action);
+    public FeedDTO<Journal> getFeed(Specification<Journal> filter, boolean isDeleted, String email, String cursor, int size) {
+        return FeedUtil.find(entityManager, Journal.class, visible(filter, isDeleted, email), cursor, size);
     }
 
+    //выгрузка для аудита: все записи включая удалённые, по возрастанию id;
+    //оборванную загрузку продолжают с fromId = последний полученный ID + 1
     @Override
-    public List<Journal> getAllByUser(Long userId) {
-        return journalRepository.findAllByUserId(userId);
+    public ResponseEntity<StreamingResponseBody> export(Specification<Journal> filter) {
+        return ResponseEntity.ok()
+                .contentType(new MediaType("application", "gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=journal.ndjson.gz")
+                .body(out -> journalService.exportRows(filter, out));
     }
 
     @Override
-    public List<Journal> getAllByDateCreatedAfter(String after) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        LocalDateTime dateTime = LocalDateTime.parse(after, formatter);
-        return journalRepository.findAllByDateCreatedAfter(dateTime);
+    @Transactional(readOnly = true)
+    public void exportRows(Specification<Journal> filter, OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        try (Stream<JournalExportDTO> rows = ProjectionUtil.stream(entityManager, Journal.class, JournalExportDTO.class,
+                filter, Sort.by("id"), exportFetchSize, root -> {
+                    Join<Journal, User> user = root.join("user", JoinType.LEFT);
+                    return new Selection<?>[]{root.get("id"), root.get("dateCreated"), root.get("dateUpdated"),
+                            user.get("name"), user.get("surname"), root.get("table"), root.get("action"),
+                            root.get("deleted")};
+                })) {
+            ExportUtil.write(rows, JournalExportDTO.class, ExportUtil.NDJSON, objectMapper, gzip);
+        }
+        gzip.finish();
     }
 
-    @Override
-    public List<Journal> getAllByDateCreatedBefore(String before) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        LocalDateTime dateTime = LocalDateTime.parse(before, formatter);
-        return journalRepository.findAllByDateCreatedBefore(dateTime);
+    private Specification<Journal> visible(Specification<Journal> filter, boolean isDeleted, String email) {
+        AuthenticatedUser user = currentUser.get(email);
+        if (isDeleted && !user.isAdmin())
+            throw new AccessDenied("Deleted journal records are not available for you");
+        return Specification
+                .where(BaseSpecification.<Journal>deleted(isDeleted))
+                .and(JournalSpecification.visibleFor(user.getDepartmentIds()))
+                .and(filter);
     }
 
     @Override
+    @Journaled(table = "'JOURNAL'", action = "delete")
     public ResponseMessage deleteById(Long id, String userEmail) {
         Journal oldJournal;
-        if (userRepository.findByEmail(userEmail).getRole().equals("ROLE_ADMIN"))
+        if (currentUser.get(userEmail).isAdmin())
             oldJournal = journalService.getByIdForAdmin(id).getBody();
         else
             oldJournal = journalService.getByIdForUser(id, userEmail).getBody();
@@ -120,12 +145,6 @@ public class JournalServiceImpl implements JournalService {
         oldJournal.setDeleted(true);
         journalRepository.save(oldJournal);
 
-        Journal journal = new Journal();
-        journal.setTable("JOURNAL");
-        journal.setAction("delete");
-        journal.setUser(userRepository.findByEmail(userEmail));
-        journal.setDeleted(false);
-        journalRepository.save(journal);
         return new ResponseMessage(HttpStatus.OK.value(), "Journal id " + id +" deleted successfully");
     }
 }
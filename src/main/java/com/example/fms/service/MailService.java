@@ -1,5 +1,5 @@
 package com.example.fms.service;
 
 public interface MailService {
-    Boolean send(String toEmail, String subject, String text);
+    void send(String toEmail, String subject, String text);
 }
@@ -1,34 +1,18 @@
 package com.example.fms.service;
 
+import com.example.fms.entity.OutboxMail;
+import com.example.fms.repository.OutboxMailRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.env.Environment;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
-import java.util.Objects;
-
 @Service
 public class MailServiceImpl implements MailService {
     @Autowired
-    private JavaMailSender javaMailSender;
-    @Autowired
-    private Environment environment;
+    private OutboxMailRepository outboxMailRepository;
 
+    //письмо попадает в outbox в транзакции вызывающего, по SMTP его отправит MailDispatcher
     @Override
-    public Boolean send(String toEmail, String subject, String text) {
-        try{
-            SimpleMailMessage simpleMailMessage = new SimpleMailMessage();
-            simpleMailMessage.setSubject(subject);
-            simpleMailMessage.setText(text);
-            simpleMailMessage.setTo(toEmail);
-            simpleMailMessage.setFrom(Objects.requireNonNull(environment.getProperty("spring.mail.username")));
-            javaMailSender.send(simpleMailMessage);
-            return true;
-        }catch(Exception e){
-            System.out.println(e.getMessage());
-            return false;
-        }
-
+    public void send(String toEmail, String subject, String text) {
+        outboxMailRepository.save(new OutboxMail(toEmail, subject, text));
     }
 }
@@ -1,16 +1,17 @@
 package com.example.fms.service;
 
-import com.example.fms.entity.Role;
 import com.example.fms.repository.UserRepository;
+import com.example.fms.security.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
 
 //for working with jwt
 
@@ -19,12 +20,37 @@ public class MyUserDetailsService implements UserDetailsService {
     @Autowired
     private UserRepository userAccountRepository;
 
+    @Value("${fms.security.principal-ttl-ms:30000}")
+    private long ttl;
+    @Value("${fms.security.principal-cache-size:10000}")
+    private long cacheSize;
+
+    // пользователь с ролью и отделами живёт в кэше ttl мс, изменения пользователя сбрасывают запись через evict
+    private Cache<String, AuthenticatedUser> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+                .maximumSize(cacheSize)
+                .build();
+    }
+
     @Override
-    public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+    public AuthenticatedUser loadUserByUsername(String email) throws UsernameNotFoundException {
+        AuthenticatedUser cached = cache.getIfPresent(email);
+        if (cached != null)
+            return cached;
+
         com.example.fms.entity.User userAccount = userAccountRepository.findByEmailAndActive(email, true);
-        //System.out.println(userAccount);
-        List<Role> roles = new ArrayList<>();
-        roles.add(userAccount.getRole());
-        return new User(userAccount.getEmail(), userAccount.getPassword(), roles);
+        if (userAccount == null)
+            throw new UsernameNotFoundException("User " + email + " not found!");
+        AuthenticatedUser user = new AuthenticatedUser(userAccount);
+        cache.put(email, user);
+        return user;
+    }
+
+    public void evict(String email) {
+        cache.invalidate(email);
     }
-}
\ No newline at end of file
+}
@@ -1,26 +1,22 @@
 package com.example.fms.service;
 
+import com.example.fms.audit.AuditJournal;
+import com.example.fms.audit.Journaled;
 import com.example.fms.dto.StaffDTO;
 import com.example.fms.entity.*;
 import com.example.fms.exception.ResourceNotFoundException;
 import com.example.fms.repository.DepartmentRepository;
-import com.example.fms.repository.JournalRepository;
 import com.example.fms.repository.StaffRepository;
-import com.example.fms.repository.UserRepository;
-import org.hibernate.Filter;
-import org.hibernate.Session;
+import com.example.fms.specification.BaseSpecification;
+import com.example.fms.util.PageableUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import javax.persistence.EntityManager;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -28,43 +24,22 @@ public class StaffServiceImpl implements StaffService{
     @Autowired
     private StaffRepository staffRepository;
     @Autowired
-    private JournalRepository journalRepository;
-    @Autowired
-    private UserRepository userRepository;
+    private AuditJournal auditJournal;
     @Autowired
     private DepartmentService departmentService;
-    @Autowired
-    private EntityManager entityManager;
 
     @Override
-    public List<Staff> getAll(boolean isDeleted) {
-        Session session = entityManager.unwrap(Session.class);
-        Filter filter = session.enableFilter("deletedStaffFilter");
-        filter.setParameter("isDeleted", isDeleted);
-        List<Staff> staffList = staffRepository.findAllByOrderByDateCreatedDesc();
-        session.disableFilter("deletedStaffFilter");
-        return staffList;
-    }
-
-    @Override
-    public Page<Staff> getByPage(List<Staff> list, Pageable pageable) {
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-
-        List<Staff> output = new ArrayList<>();
-        if (start <= end) {
-            output = list.subList(start, end);
-        }
-        return new PageImpl<>(output, pageable, list.size());
+    public Page<Staff> getAll(Specification<Staff> filter, boolean isDeleted, Pageable pageable) {
+        Specification<Staff> specification = Specification
+                .where(BaseSpecification.<Staff>deleted(isDeleted))
+                .and(filter);
+        return staffRepository.findAll(specification, PageableUtil.withDefaultSort(pageable, Staff.class));
     }
 
     @Override
+    @Journaled(table = "'STAFF: ' + #newStaff.name", action = "create")
     public ResponseEntity<Staff> addStaff(StaffDTO newStaff, String userEmail) {
-        List<Department> departmentList = new ArrayList<>();
-        for (Long id : newStaff.getDepartments()) {
-            Department department = departmentService.getDepartmentById(id).getBody();
-            departmentList.add(department);
-        }
+        List<Department> departmentList = departmentService.getDepartmentsByIds(newStaff.getDepartments());
         Staff staff = new Staff(newStaff.getName(),
                 departmentList,
                 newStaff.getPosition(),
@@ -73,13 +48,6 @@ public class StaffServiceImpl implements StaffService{
                 newStaff.getAccepted());
         staffRepository.save(staff);
 
-            Journal journal = new Journal();
-            journal.setTable("STAFF: " + newStaff.getName());
-            journal.setAction("create");
-            journal.setUser(userRepository.findByEmail(userEmail));
-            journal.setDeleted(false);
-            journalRepository.save(journal);
-
            return ResponseEntity.ok().body(staff);
     }
 
@@ -93,17 +61,9 @@ public class StaffServiceImpl implements StaffService{
     }
 
     @Override
-    public List<Staff> getAllStaffByName(String name) {
-        return staffRepository.findAllByNameContainingIgnoringCase(name);
-    }
-
-    @Override
+    @Journaled(table = "'STAFF: ' + #newStaff.name", action = "update")
     public ResponseEntity<Staff> updateStaffById(StaffDTO newStaff, Long id, String userEmail) {
-        List<Department> departmentList = new ArrayList<>();
-        for (Long depId : newStaff.getDepartments()) {
-            Department department = departmentService.getDepartmentById(depId).getBody();
-            departmentList.add(department);
-        }
+        List<Department> departmentList = departmentService.getDepartmentsByIds(newStaff.getDepartments());
 
         Staff result = staffRepository.findById(id)
                 .map(staff -> {
@@ -118,13 +78,6 @@ public class StaffServiceImpl implements StaffService{
                     return staffRepository.save(staff);
                 }).orElseThrow(() -> new ResourceNotFoundException("Staff id " + id + " not found!"));
 
-        Journal journal = new Journal();
-        journal.setTable("STAFF: " + newStaff.getName());
-        journal.setAction("update");
-        journal.setUser(userRepository.findByEmail(userEmail));
-        journal.setDeleted(false);
-        journalRepository.save(journal);
-
         return ResponseEntity.ok().body(result);
     }
 
@@ -136,29 +89,8 @@ public class StaffServiceImpl implements StaffService{
             throw new ResourceNotFoundException("Staff id " + id + " was deleted!");
 
         staffRepository.deleteById(id);
-        Journal journal = new Journal();
-        journal.setTable("STAFF: " + staff.getName());
-        journal.setAction("delete");
-        journal.setUser(userRepository.findByEmail(userEmail));
-        journal.setDeleted(false);
-        journalRepository.save(journal);
+        auditJournal.record("STAFF: " + staff.getName(), "delete", userEmail);
 
         return new ResponseMessage(HttpStatus.OK.value(), "Staff successfully deleted");
     }
-
-    @Override
-    public List<Staff> getAllByDateCreatedAfter(String after) {
-        //  String str = "2016-03-04 11:30";
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        LocalDateTime dateTime = LocalDateTime.parse(after, formatter);
-        return staffRepository.findAllByDateCreatedAfter(dateTime);
-    }
-
-    @Override
-    public List<Staff> getAllByDateCreatedBefore(String before) {
-        //  String str = "2016-03-04 11:30";
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        LocalDateTime dateTime = LocalDateTime.parse(before, formatter);
-        return staffRepository.findAllByDateCreatedBefore(dateTime);
-    }
 }
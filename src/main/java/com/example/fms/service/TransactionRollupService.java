@@ -0,0 +1,20 @@
+package com.example.fms.service;
+
+import com.example.fms.dto.ProfitDTO;
+import com.example.fms.entity.ResponseMessage;
+import com.example.fms.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface TransactionRollupService {
+    void add(Transaction transaction);
+    void addAll(List<Transaction> transactions);
+    void remove(Transaction transaction);
+
+    Map<String, BigDecimal> report(String action, String groupBy, LocalDateTime after, LocalDateTime before);
+    List<ProfitDTO> profit(LocalDateTime after, LocalDateTime before, String period, boolean byDepartment);
+    ResponseMessage rebuild();
+}
@@ -0,0 +1,259 @@
+package com.example.fms.service;
+
+import com.example.fms.dto.ProfitDTO;
+import com.example.fms.dto.ReportDTO;
+import com.example.fms.entity.BaseEntity;
+import com.example.fms.entity.Department;
+import com.example.fms.entity.ResponseMessage;
+import com.example.fms.entity.Transaction;
+import com.example.fms.repository.DepartmentRepository;
+import com.example.fms.repository.TransactionRepository;
+import com.example.fms.repository.TransactionRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+public class TransactionRollupServiceImpl implements TransactionRollupService {
+    private static final Logger log = LoggerFactory.getLogger(TransactionRollupServiceImpl.class);
+
+    @Autowired
+    private TransactionRollupRepository transactionRollupRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    //пока rollup не заполнен (первый запуск после выкладки), отчеты целиком считаются по транзакциям
+    private volatile boolean built;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    //пустой rollup при существующих транзакциях заполняется один раз при старте, без ручного /rollup/rebuild
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            transactionTemplate.execute(status -> {
+                transactionRollupRepository.lockTransactions();
+                transactionRollupRepository.lockRollup();
+                if (!transactionRollupRepository.anyRows() && transactionRepository.existsByDeletedFalse()) {
+                    int rows = transactionRollupRepository.insertFromTransactions();
+                    log.info("Transaction rollup was empty, filled {} rows from transactions", rows);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            //отчеты остаются на транзакциях до успешного rebuild
+            log.error("Transaction rollup backfill failed, reports are computed from transactions", e);
+            return;
+        }
+        built = true;
+    }
+
+    @Override
+    @Transactional
+    public void add(Transaction transaction) {
+        if (!transaction.isDeleted())
+            apply(transaction, transaction.getBalance(), 1);
+    }
+
+    @Override
+    @Transactional
+    public void addAll(List<Transaction> transactions) {
+        //пачка проводок: сначала суммируем в памяти, потом один upsert на каждую строку rollup
+        Map<List<Object>, BigDecimal> totals = new HashMap<>();
+        Map<List<Object>, Long> counts = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.isDeleted())
+                continue;
+            List<Object> key = Arrays.asList(transaction.getDateCreated().toLocalDate(),
+                    idOf(transaction.getDepartment()), idOf(transaction.getCategory()), idOf(transaction.getProject()),
+                    idOf(transaction.getCounterparty()), transaction.getAction());
+            totals.merge(key, transaction.getBalance(), BigDecimal::add);
+            counts.merge(key, 1L, Long::sum);
+        }
+        for (Map.Entry<List<Object>, BigDecimal> entry : totals.entrySet()) {
+            List<Object> key = entry.getKey();
+            transactionRollupRepository.upsert((LocalDate) key.get(0), (Long) key.get(1), (Long) key.get(2),
+                    (Long) key.get(3), (Long) key.get(4), (String) key.get(5), entry.getValue(), counts.get(key));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void remove(Transaction transaction) {
+        if (!transaction.isDeleted())
+            apply(transaction, transaction.getBalance().negate(), -1);
+    }
+
+    private void apply(Transaction transaction, BigDecimal total, long count) {
+        transactionRollupRepository.upsert(transaction.getDateCreated().toLocalDate(),
+                idOf(transaction.getDepartment()), idOf(transaction.getCategory()), idOf(transaction.getProject()),
+                idOf(transaction.getCounterparty()), transaction.getAction(), total, count);
+    }
+
+    private static Long idOf(BaseEntity entity) {
+        return entity == null ? 0L : entity.getId();
+    }
+
+    @Override
+    public Map<String, BigDecimal> report(String action, String groupBy, LocalDateTime after, LocalDateTime before) {
+        //обе границы не включаются: after передается в запрос как строгое условие "> :after"
+        LocalDate firstDay = after.toLocalDate().plusDays(1);
+        LocalDate lastDay = before.toLocalDate();
+
+        Map<String, BigDecimal> map = new HashMap<>();
+        if (!built || !firstDay.isBefore(lastDay)) {
+            merge(map, fromTransactions(action, groupBy, after, after, before));
+            return map;
+        }
+        //полные дни берем из rollup, неполные дни по краям считаем по самим транзакциям
+        merge(map, fromTransactions(action, groupBy, after, after, firstDay.atStartOfDay()));
+        merge(map, fromRollup(action, groupBy, firstDay, lastDay));
+        merge(map, fromTransactions(action, groupBy, after, lastDay.atStartOfDay(), before));
+        return map;
+    }
+
+    private List<ReportDTO> fromTransactions(String action, String groupBy, LocalDateTime after,
+                                             LocalDateTime from, LocalDateTime to) {
+        switch (groupBy) {
+            case "category":
+                return transactionRepository.sumByCategory(action, after, from, to);
+            case "project":
+                return transactionRepository.sumByProject(action, after, from, to);
+            case "counterparty":
+                return transactionRepository.sumByCounterparty(action, after, from, to);
+            default:
+                throw new IllegalArgumentException("Unknown report grouping " + groupBy);
+        }
+    }
+
+    private List<ReportDTO> fromRollup(String action, String groupBy, LocalDate from, LocalDate to) {
+        switch (groupBy) {
+            case "category":
+                return transactionRollupRepository.sumByCategory(action, from, to);
+            case "project":
+                return transactionRollupRepository.sumByProject(action, from, to);
+            case "counterparty":
+                return transactionRollupRepository.sumByCounterparty(action, from, to);
+            default:
+                throw new IllegalArgumentException("Unknown report grouping " + groupBy);
+        }
+    }
+
+    private static void merge(Map<String, BigDecimal> map, List<ReportDTO> rows) {
+        for (ReportDTO row : rows) {
+            BigDecimal total = row.getTotal() == null ? BigDecimal.ZERO : row.getTotal();
+            map.merge(row.getName(), total, BigDecimal::add);
+        }
+    }
+
+    @Override
+    public List<ProfitDTO> profit(LocalDateTime after, LocalDateTime before, String period, boolean byDepartment) {
+        LocalDate firstDay = after.toLocalDate().plusDays(1);
+        LocalDate lastDay = before.toLocalDate();
+
+        List<ProfitDTO> days = new ArrayList<>();
+        if (built && firstDay.isBefore(lastDay)) {
+            days.addAll(profitFromTransactions(after, after, firstDay.atStartOfDay()));
+            days.addAll(transactionRollupRepository.profitByDay(firstDay, lastDay));
+            days.addAll(profitFromTransactions(after, lastDay.atStartOfDay(), before));
+        } else {
+            days.addAll(profitFromTransactions(after, after, before));
+        }
+
+        Map<String, ProfitDTO> buckets = new HashMap<>();
+        for (ProfitDTO day : days) {
+            LocalDate bucket = bucketOf(day.getPeriod(), period);
+            Long departmentId = byDepartment ? day.getDepartmentId() : null;
+            ProfitDTO total = buckets.computeIfAbsent(bucket + "|" + departmentId,
+                    key -> new ProfitDTO(bucket, departmentId, BigDecimal.ZERO, BigDecimal.ZERO));
+            total.setIncome(total.getIncome().add(day.getIncome()));
+            total.setExpense(total.getExpense().add(day.getExpense()));
+            total.setNet(total.getIncome().subtract(total.getExpense()));
+        }
+
+        List<ProfitDTO> result = new ArrayList<>(buckets.values());
+        if (byDepartment) {
+            Set<Long> ids = new HashSet<>();
+            for (ProfitDTO row : result)
+                ids.add(row.getDepartmentId());
+            Map<Long, String> names = new HashMap<>();
+            for (Department department : departmentRepository.findAllById(ids))
+                names.put(department.getId(), department.getName());
+            for (ProfitDTO row : result)
+                row.setDepartment(names.get(row.getDepartmentId()));
+        }
+        result.sort(Comparator.comparing(ProfitDTO::getPeriod, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(ProfitDTO::getDepartmentId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return result;
+    }
+
+    //неполные дни считаются по транзакциям, с разбивкой по дням, если отрезок переходит через полночь
+    private List<ProfitDTO> profitFromTransactions(LocalDateTime after, LocalDateTime from, LocalDateTime to) {
+        List<ProfitDTO> rows = new ArrayList<>();
+        while (from.isBefore(to)) {
+            LocalDateTime midnight = from.toLocalDate().plusDays(1).atStartOfDay();
+            LocalDateTime end = midnight.isBefore(to) ? midnight : to;
+            for (ProfitDTO row : transactionRepository.profitByDepartment(after, from, end)) {
+                row.setPeriod(from.toLocalDate());
+                rows.add(row);
+            }
+            from = end;
+        }
+        return rows;
+    }
+
+    private static LocalDate bucketOf(LocalDate day, String period) {
+        if (period == null)
+            return null;
+        switch (period) {
+            case "day":
+                return day;
+            case "week":
+                return day.with(DayOfWeek.MONDAY);
+            case "month":
+                return day.withDayOfMonth(1);
+            default:
+                throw new IllegalArgumentException("Unknown profit period " + period);
+        }
+    }
+
+    @Override
+    @Transactional
+    public ResponseMessage rebuild() {
+        transactionRollupRepository.lockTransactions();
+        transactionRollupRepository.lockRollup();
+        transactionRollupRepository.deleteAllRows();
+        int rows = transactionRollupRepository.insertFromTransactions();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                built = true;
+            }
+        });
+        return new ResponseMessage(HttpStatus.OK.value(), "Transaction rollup rebuilt: " + rows + " rows");
+    }
+}
@@ -1,26 +1,54 @@
 package com.example.fms.service;
 
+import com.example.fms.audit.AuditJournal;
+import com.example.fms.dto.BatchItemResultDTO;
+import com.example.fms.dto.FeedDTO;
+import com.example.fms.dto.ProfitDTO;
+import com.example.fms.dto.TransactionBatchDTO;
+import com.example.fms.dto.TransactionBatchItemDTO;
 import com.example.fms.dto.TransactionExpenseDTO;
 import com.example.fms.dto.TransactionIncomeDTO;
 import com.example.fms.dto.TransactionRemittanceDTO;
+import com.example.fms.dto.TransactionRowDTO;
 import com.example.fms.entity.*;
 
 import com.example.fms.exception.AccessDenied;
 import com.example.fms.exception.NotEnoughBalanceException;
 import com.example.fms.exception.ResourceNotFoundException;
 import com.example.fms.repository.*;
+import com.example.fms.security.AuthenticatedUser;
+import com.example.fms.security.CurrentUser;
+import com.example.fms.specification.BaseSpecification;
+import com.example.fms.specification.TransactionSpecification;
+import com.example.fms.util.FeedUtil;
+import com.example.fms.util.ExportUtil;
+import com.example.fms.util.PageableUtil;
+import com.example.fms.util.ProjectionUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionServiceImpl implements TransactionService{
@@ -29,187 +57,119 @@ public class TransactionServiceImpl implements TransactionService{
     @Autowired
     private AccountService accountService;
     @Autowired
-    private AccountRepository accountRepository;
-    @Autowired
     private CategoryService categoryService;
     @Autowired
     private UserRepository userRepository;
     @Autowired
+    private CurrentUser currentUser;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
     private CounterpartyService counterpartyService;
     @Autowired
     private ProjectService projectService;
     @Autowired
-    private JournalRepository journalRepository;
+    private AuditJournal auditJournal;
     @Autowired
     private DepartmentService departmentService;
     @Autowired
     private TransactionService transactionService;
+    @Autowired
+    private TransactionRollupService transactionRollupService;
+    @Autowired
+    private BalanceService balanceService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private DepartmentRepository departmentRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private CounterpartyRepository counterpartyRepository;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
 
-    @Override
-    public List<Transaction> getAll(boolean isDeleted, String email) {
-        User user = userRepository.findByEmail(email);
-        if (isDeleted && !user.getRole().getName().equals("ROLE_ADMIN"))
-            throw new AccessDenied("Deleted transactions are not available for you");
-        List<Department> departments = user.getDepartments();
-        List<Transaction> transactions = new ArrayList<>();
-        for (Transaction transaction : transactionRepository.findAllByDeletedOrderByDateCreatedDesc(isDeleted)) {
-            if (transaction.getAction().equals("REMITTANCE"))
-                transactions.add(transaction);
-            else if (departments.contains(transaction.getDepartment()))
-                transactions.add(transaction);
-        }
-        return transactions;
-    }
-
-//    @Override
-//    @Override
-//    public ResponseEntity<BigDecimal> income(LocalDateTime after, LocalDateTime before, String email) {
-//        BigDecimal income = BigDecimal.ZERO;
-//        List<Transaction> transactions = transactionRepository.findAllByDeletedAndActionContainingIgnoringCase(false, "INCOME");
-//        for (Transaction transaction : transactions) {
-//            income = income.add(transaction.getBalance());
-//        }
-//        return ResponseEntity.ok().body(income);
-//    }
+    @Value("${fms.export.fetch-size:1000}")
+    private int exportFetchSize;
 
     @Override
-    public ResponseEntity<Map<String,BigDecimal>> incomeCategory(LocalDateTime after, LocalDateTime before) {
-        Map<String, BigDecimal> map = new HashMap<>();
-        List<String> categories = new ArrayList<>();
-        List<BigDecimal> transactions = new ArrayList<>();
-
-        for (Category category : categoryService.getAll()) {
-            categories.add(category.getName());
-            transactions.add(BigDecimal.ZERO);
-        }
-
-        for (Transaction transaction : transactionRepository
-                .findAllByDeletedAndActionContainingAndDateCreatedAfterAndDateCreatedBefore(false, "INCOME", after, before)) {
-            int index = categories.indexOf(transaction.getCategory().getName());
-            BigDecimal temp = transaction.getBalance().add(transactions.get(index));
-            transactions.set(index, temp);
-        }
-
-        for (int i = 0; i < categories.size(); i++) {
-            map.put(categories.get(i), transactions.get(i));
-        }
-        return ResponseEntity.ok().body(map);
+    public Page<Transaction> getAll(Specification<Transaction> filter, boolean isDeleted, String email, Pageable pageable) {
+        return transactionRepository.findAll(visible(filter, isDeleted, email), PageableUtil.withDefaultSort(pageable, Transaction.class));
     }
 
     @Override
-    public ResponseEntity<Map<String,BigDecimal>> incomeProject(LocalDateTime after, LocalDateTime before) {
-        Map<String, BigDecimal> map = new HashMap<>();
-        List<String> projects = new ArrayList<>();
-        List<BigDecimal> transactions = new ArrayList<>();
-
-        for (Project project : projectService.getAll()) {
-            projects.add(project.getName());
-            transactions.add(BigDecimal.ZERO);
-        }
-
-        for (Transaction transaction : transactionRepository
-                .findAllByDeletedAndActionContainingAndDateCreatedAfterAndDateCreatedBefore(false, "INCOME", after, before)) {
-            int index = projects.indexOf(transaction.getProject().getName());
-            BigDecimal temp = transaction.getBalance().add(transactions.get(index));
-            transactions.set(index, temp);
-        }
-
-        for (int i = 0; i < transactions.size(); i++)
-            map.put(projects.get(i), transactions.get(i));
-        return ResponseEntity.ok().body(map);
+    public Page<TransactionRowDTO> getRows(Specification<Transaction> filter, boolean isDeleted, String email, Pageable pageable) {
+        return ProjectionUtil.findPage(entityManager, Transaction.class, TransactionRowDTO.class,
+                visible(filter, isDeleted, email), PageableUtil.withDefaultSort(pageable, Transaction.class), TransactionServiceImpl::rowColumns);
     }
 
+    //права и формат проверяются сразу, строки пишутся уже после отправки заголовков
     @Override
-    public ResponseEntity<Map<String,BigDecimal>> incomeCounterparty(LocalDateTime after, LocalDateTime before) {
-        Map<String, BigDecimal> map = new HashMap<>();
-        List<String> counterparties = new ArrayList<>();
-        List<BigDecimal> transactions = new ArrayList<>();
-
-        for (Counterparty counterparty : counterpartyService.getAll()) {
-            counterparties.add(counterparty.getName());
-            transactions.add(BigDecimal.ZERO);
-        }
-
-        for (Transaction transaction : transactionRepository
-                .findAllByDeletedAndActionContainingAndDateCreatedAfterAndDateCreatedBefore(false, "INCOME", after, before)) {
-            int index = counterparties.indexOf(transaction.getCounterparty().getName());
-            BigDecimal temp = transaction.getBalance().add(transactions.get(index));
-            transactions.set(index, temp);
-        }
-
-        for (int i = 0; i < transactions.size(); i++)
-            map.put(counterparties.get(i), transactions.get(i));
-        return ResponseEntity.ok().body(map);
+    public ResponseEntity<StreamingResponseBody> export(Specification<Transaction> filter, boolean isDeleted, String email, String format) {
+        Specification<Transaction> specification = visible(filter, isDeleted, email);
+        return ResponseEntity.ok()
+                .contentType(ExportUtil.mediaType(format))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=transactions." + format)
+                .body(out -> transactionService.exportRows(specification, format, out));
     }
 
     @Override
-    public ResponseEntity<Map<String, BigDecimal>> expenseCategory(LocalDateTime after, LocalDateTime before) {
-        Map<String, BigDecimal> map = new HashMap<>();
-        List<String> categories = new ArrayList<>();
-        List<BigDecimal> transactions = new ArrayList<>();
-
-        for (Category category : categoryService.getAll()) {
-            categories.add(category.getName());
-            transactions.add(BigDecimal.ZERO);
-        }
-
-        for (Transaction transaction : transactionRepository
-                .findAllByDeletedAndActionContainingAndDateCreatedAfterAndDateCreatedBefore(false, "EXPENSE", after, before)) {
-            int index = categories.indexOf(transaction.getCategory().getName());
-            BigDecimal temp = transaction.getBalance().add(transactions.get(index));
-            transactions.set(index, temp);
+    @Transactional(readOnly = true)
+    public void exportRows(Specification<Transaction> specification, String format, OutputStream out) throws IOException {
+        try (Stream<TransactionRowDTO> rows = ProjectionUtil.stream(entityManager, Transaction.class, TransactionRowDTO.class,
+                specification, Sort.by("dateCreated", "id"), exportFetchSize, TransactionServiceImpl::rowColumns)) {
+            ExportUtil.write(rows, TransactionRowDTO.class, format, objectMapper, out);
         }
+    }
 
-        for (int i = 0; i < categories.size(); i++) {
-            map.put(categories.get(i), transactions.get(i));
-        }
-        return ResponseEntity.ok().body(map);
+    private static Selection<?>[] rowColumns(Root<Transaction> root) {
+        Join<Transaction, Account> fromAccount = root.join("fromAccount", JoinType.LEFT);
+        Join<Transaction, Account> toAccount = root.join("toAccount", JoinType.LEFT);
+        Join<Transaction, Category> category = root.join("category", JoinType.LEFT);
+        Join<Transaction, Project> project = root.join("project", JoinType.LEFT);
+        Join<Transaction, Counterparty> counterparty = root.join("counterparty", JoinType.LEFT);
+        Join<Transaction, Department> department = root.join("department", JoinType.LEFT);
+        Join<Transaction, User> user = root.join("user", JoinType.LEFT);
+        return new Selection<?>[]{root.get("id"), root.get("dateCreated"), root.get("action"),
+                root.get("balance"), root.get("description"),
+                fromAccount.get("id"), fromAccount.get("name"), toAccount.get("id"), toAccount.get("name"),
+                category.get("id"), category.get("name"), project.get("id"), project.get("name"),
+                counterparty.get("id"), counterparty.get("name"), department.get("id"), department.get("name"),
+                user.get("id"), user.get("email")};
     }
 
     @Override
-    public ResponseEntity<Map<String, BigDecimal>> expenseProject(LocalDateTime after, LocalDateTime before) {
-        Map<String, BigDecimal> map = new HashMap<>();
-        List<String> projects = new ArrayList<>();
-        List<BigDecimal> transactions = new ArrayList<>();
-
-        for (Project project : projectService.getAll()) {
-            projects.add(project.getName());
-            transactions.add(BigDecimal.ZERO);
-        }
-
-        for (Transaction transaction : transactionRepository
-                .findAllByDeletedAndActionContainingAndDateCreatedAfterAndDateCreatedBefore(false, "EXPENSE", after, before)) {
-            int index = projects.indexOf(transaction.getProject().getName());
-            BigDecimal temp = transaction.getBalance().add(transactions.get(index));
-            transactions.set(index, temp);
-        }
-
-        for (int i = 0; i < transactions.size(); i++)
-            map.put(projects.get(i), transactions.get(i));
-        return ResponseEntity.ok().body(map);
+    public FeedDTO<Transaction> getFeed(Specification<Transaction> filter, boolean isDeleted, String email, String cursor, int size) {
+        return FeedUtil.find(entityManager, Transaction.class, visible(filter, isDeleted, email), cursor, size,
+                "Transaction.list");
     }
 
-    @Override
-    public ResponseEntity<Map<String, BigDecimal>> expenseCounterparty(LocalDateTime after, LocalDateTime before) {
-        Map<String, BigDecimal> map = new HashMap<>();
-        List<String> counterparties = new ArrayList<>();
-        List<BigDecimal> transactions = new ArrayList<>();
-
-        for (Counterparty counterparty : counterpartyService.getAll()) {
-            counterparties.add(counterparty.getName());
-            transactions.add(BigDecimal.ZERO);
-        }
+    private Specification<Transaction> visible(Specification<Transaction> filter, boolean isDeleted, String email) {
+        AuthenticatedUser user = currentUser.get(email);
+        if (isDeleted && !user.isAdmin())
+            throw new AccessDenied("Deleted transactions are not available for you");
+        return Specification
+                .where(BaseSpecification.<Transaction>deleted(isDeleted))
+                .and(TransactionSpecification.visibleFor(user.getDepartmentIds()))
+                .and(filter);
+    }
 
-        for (Transaction transaction : transactionRepository
-                .findAllByDeletedAndActionContainingAndDateCreatedAfterAndDateCreatedBefore(false, "EXPENSE", after, before)) {
-            int index = counterparties.indexOf(transaction.getCounterparty().getName());
-            BigDecimal temp = transaction.getBalance().add(transactions.get(index));
-            transactions.set(index, temp);
-        }
+//    @Override
+//    @Override
+//    public ResponseEntity<BigDecimal> income(LocalDateTime after, LocalDateTime before, String email) {
+//        BigDecimal income = BigDecimal.ZERO;
+//        List<Transaction> transactions = transactionRepository.findAllByDeletedAndActionContainingIgnoringCase(false, "INCOME");
+//        for (Transaction transaction : transactions) {
+//            income = income.add(transaction.getBalance());
+//        }
+//        return ResponseEntity.ok().body(income);
+//    }
 
-        for (int i = 0; i < transactions.size(); i++)
-            map.put(counterparties.get(i), transactions.get(i));
-        return ResponseEntity.ok().body(map);
+    @Override
+    public ResponseEntity<Map<String, BigDecimal>> report(String action, String groupBy, LocalDateTime after, LocalDateTime before) {
+        return ResponseEntity.ok().body(transactionRollupService.report(action, groupBy, after, before));
     }
 
 //    @Override
@@ -223,20 +183,18 @@ public class TransactionServiceImpl implements TransactionService{
 //    }
 
     @Override
-    public ResponseEntity<BigDecimal> profit(LocalDateTime after, LocalDateTime before, String email) {
-        BigDecimal profit = BigDecimal.ZERO;
-//                Objects.requireNonNull(this.income(after, before, email).getBody()).subtract(this.expense(after, before, email).getBody());
-////        BigDecimal profit = income.subtract(expense);
-        return ResponseEntity.ok().body(profit);
+    public ResponseEntity<List<ProfitDTO>> profit(LocalDateTime after, LocalDateTime before, String period, boolean byDepartment) {
+        return ResponseEntity.ok().body(transactionRollupService.profit(after, before, period, byDepartment));
     }
 
     @Override
+    @Transactional
     public ResponseEntity<Transaction> addIncome(TransactionIncomeDTO transactionIncomeDTO, String userEmail) {
         Transaction transaction = new Transaction();
         transaction.setAction("INCOME");
 
         Department department = departmentService.getDepartmentById(transactionIncomeDTO.getDepartment()).getBody();
-        if (!userRepository.findByEmail(userEmail).getDepartments().contains(department))
+        if (!currentUser.get(userEmail).inDepartment(department))
             throw new AccessDenied("You do not have access to the next departmentId: " + department.getId());
         transaction.setDepartment(department);
 
@@ -250,27 +208,29 @@ public class TransactionServiceImpl implements TransactionService{
         transaction.setProject(project);
 
         Account account = accountService.getAccountById(transactionIncomeDTO.getToAccount()).getBody();
-        transaction.setToAccount(account);
 
         transaction.setBalance(transactionIncomeDTO.getBalance());
         transaction.setDescription(transactionIncomeDTO.getDescription());
-        transaction.setUser(userRepository.findByEmail(userEmail));
+        transaction.setUser(author(userEmail));
         transaction.setDeleted(false);
 
-        account.setBalance(account.getBalance().add(transaction.getBalance()));
-        accountRepository.save(account);
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        deltas.put(account.getId(), transaction.getBalance());
+        transaction.setToAccount(balanceService.applyDeltas(deltas).get(account.getId()));
 
         transactionRepository.save(transaction);
+        transactionRollupService.add(transaction);
         return ResponseEntity.ok().body(transaction);
     }
 
     @Override
+    @Transactional
     public ResponseEntity<Transaction> addExpense(TransactionExpenseDTO transactionExpenseDTO, String userEmail) {
         Transaction transaction = new Transaction();
         transaction.setAction("EXPENSE");
 
         Department department = departmentService.getDepartmentById(transactionExpenseDTO.getDepartment()).getBody();
-        if (!userRepository.findByEmail(userEmail).getDepartments().contains(department))
+        if (!currentUser.get(userEmail).inDepartment(department))
             throw new AccessDenied("You do not have access to the next departmentId: " + department.getId());
         transaction.setDepartment(department);
 
@@ -284,258 +244,300 @@ public class TransactionServiceImpl implements TransactionService{
         transaction.setProject(project);
 
         Account account = accountService.getAccountById(transactionExpenseDTO.getFromAccount()).getBody();
-        transaction.setFromAccount(account);
 
         transaction.setBalance(transactionExpenseDTO.getBalance());
         transaction.setDescription(transactionExpenseDTO.getDescription());
-        transaction.setUser(userRepository.findByEmail(userEmail));
+        transaction.setUser(author(userEmail));
         transaction.setDeleted(false);
 
-        BigDecimal a = account.getBalance().subtract(transaction.getBalance());
-        if (BigDecimal.ZERO.compareTo(a) == 1) {
-            throw new NotEnoughBalanceException("Not enough balance in account id " + transactionExpenseDTO.getFromAccount() + "!");
-        } else {
-            account.setBalance(a);
-        }
-        accountRepository.save(account);
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        deltas.put(account.getId(), transaction.getBalance().negate());
+        transaction.setFromAccount(balanceService.applyDeltas(deltas).get(account.getId()));
 
         transactionRepository.save(transaction);
+        transactionRollupService.add(transaction);
         return ResponseEntity.ok().body(transaction);
     }
 
     @Override
+    @Transactional
     public ResponseEntity<Transaction> addRemittance(TransactionRemittanceDTO transactionRemittanceDTO, String userEmail)  {
         Transaction transaction = new Transaction();
         transaction.setAction("REMITTANCE");
         Account fromAccount = accountService.getAccountById(transactionRemittanceDTO.getFromAccount()).getBody();
-        transaction.setFromAccount(fromAccount);
-
         Account toAccount = accountService.getAccountById(transactionRemittanceDTO.getToAccount()).getBody();
-        transaction.setToAccount(toAccount);
-
-        BigDecimal a = fromAccount.getBalance().subtract(transactionRemittanceDTO.getBalance());
-        if (BigDecimal.ZERO.compareTo(a) == 1) {
-            throw new NotEnoughBalanceException("Not enough balance in account id " + transactionRemittanceDTO.getFromAccount() + "!");
-        } else {
-            fromAccount.setBalance(a);
-            accountRepository.save(fromAccount);
-        }
 
         transaction.setBalance(transactionRemittanceDTO.getBalance());
         transaction.setDescription(transactionRemittanceDTO.getDescription());
-        transaction.setUser(userRepository.findByEmail(userEmail));
+        transaction.setUser(author(userEmail));
         transaction.setDeleted(false);
 
-        toAccount.setBalance(toAccount.getBalance().add(transaction.getBalance()));
-        accountRepository.save(toAccount);
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        deltas.merge(fromAccount.getId(), transaction.getBalance().negate(), BigDecimal::add);
+        deltas.merge(toAccount.getId(), transaction.getBalance(), BigDecimal::add);
+        Map<Long, Account> accounts = balanceService.applyDeltas(deltas);
+        transaction.setFromAccount(accounts.get(fromAccount.getId()));
+        transaction.setToAccount(accounts.get(toAccount.getId()));
 
         transactionRepository.save(transaction);
+        transactionRollupService.add(transaction);
         return ResponseEntity.ok().body(transaction);
     }
 
     @Override
-    public ResponseEntity<Transaction> getByIdForAdmin(Long id) {
-        Transaction transaction = transactionRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Transaction id " + id + " not found!"));
-        return ResponseEntity.ok().body(transaction);
-    }
-
-    @Override
-    public ResponseEntity<Transaction> getByIdForUser(Long id, String userEmail) {
-        Transaction transaction = transactionRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Transaction id " + id + " not found!"));
-        if (transaction.isDeleted())
-            throw new ResourceNotFoundException("Transaction id " + id + " was deleted!");
-
-        if (transaction.getAction().equals("REMITTANCE"))
-            return ResponseEntity.ok().body(transaction);
-        if (userRepository.findByEmail(userEmail).getDepartments().contains(transaction.getDepartment()))
-            return ResponseEntity.ok().body(transaction);
-        throw new AccessDenied("You do not have access to the next departmentId: " + transaction.getDepartment().getId());
-    }
-
-    @Override
-    public List<Transaction> getAllByAction(String action) {
-        return transactionRepository.findAllByActionContainingIgnoringCase(action);
-    }
+    @Transactional
+    public ResponseEntity<List<BatchItemResultDTO>> addBatch(TransactionBatchDTO transactionBatchDTO, String userEmail) {
+        List<TransactionBatchItemDTO> items = transactionBatchDTO.getItems();
+        AuthenticatedUser principal = currentUser.get(userEmail);
+        User user = author(userEmail);
+
+        //все ссылки подтягиваем несколькими IN-запросами вместо поиска по каждой строке
+        Set<Long> departmentIds = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        Set<Long> counterpartyIds = new HashSet<>();
+        Set<Long> projectIds = new HashSet<>();
+        Set<Long> accountIds = new HashSet<>();
+        for (TransactionBatchItemDTO item : items) {
+            addIfNotNull(departmentIds, item.getDepartment());
+            addIfNotNull(categoryIds, item.getCategory());
+            addIfNotNull(counterpartyIds, item.getCounterparty());
+            addIfNotNull(projectIds, item.getProject());
+            addIfNotNull(accountIds, item.getFromAccount());
+            addIfNotNull(accountIds, item.getToAccount());
+        }
+        Map<Long, Department> departments = active(departmentRepository.findAllById(departmentIds));
+        Map<Long, Category> categories = active(categoryRepository.findAllById(categoryIds));
+        Map<Long, Counterparty> counterparties = active(counterpartyRepository.findAllById(counterpartyIds));
+        Map<Long, Project> projects = active(projectRepository.findAllById(projectIds));
+        Map<Long, Account> accounts = active(accountRepository.findAllById(accountIds));
+        Map<Long, BigDecimal> balances = balanceService.lockBalances(accounts.keySet());
+
+        List<BatchItemResultDTO> results = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+        List<BatchItemResultDTO> posted = new ArrayList<>();
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        boolean failed = false;
+        for (int i = 0; i < items.size(); i++) {
+            TransactionBatchItemDTO item = items.get(i);
+            BatchItemResultDTO result = new BatchItemResultDTO(i, null, "OK", null);
+            try {
+                Transaction transaction = new Transaction();
+                transaction.setAction(item.getAction());
+                if (item.getBalance() == null || item.getBalance().signum() <= 0)
+                    throw new IllegalArgumentException("Balance must be positive");
+                transaction.setBalance(item.getBalance());
+                transaction.setDescription(item.getDescription());
+                transaction.setUser(user);
+                transaction.setDeleted(false);
+
+                Map<Long, BigDecimal> itemDeltas = new HashMap<>();
+                if ("INCOME".equals(item.getAction()) || "EXPENSE".equals(item.getAction())) {
+                    Department department = find(departments, item.getDepartment(), "Department");
+                    if (!principal.inDepartment(department))
+                        throw new AccessDenied("You do not have access to the next departmentId: " + department.getId());
+                    transaction.setDepartment(department);
+                    transaction.setCategory(find(categories, item.getCategory(), "Category"));
+                    transaction.setCounterparty(find(counterparties, item.getCounterparty(), "Counterparty"));
+                    transaction.setProject(find(projects, item.getProject(), "Project"));
+                } else if (!"REMITTANCE".equals(item.getAction()))
+                    throw new IllegalArgumentException("Unknown action " + item.getAction());
+
+                if ("INCOME".equals(item.getAction()) || "REMITTANCE".equals(item.getAction())) {
+                    transaction.setToAccount(find(accounts, item.getToAccount(), "Account"));
+                    itemDeltas.merge(item.getToAccount(), item.getBalance(), BigDecimal::add);
+                }
+                if ("EXPENSE".equals(item.getAction()) || "REMITTANCE".equals(item.getAction())) {
+                    transaction.setFromAccount(find(accounts, item.getFromAccount(), "Account"));
+                    itemDeltas.merge(item.getFromAccount(), item.getBalance().negate(), BigDecimal::add);
+                }
+
+                //строки проверяются по порядку: овердрафт считается с учетом уже принятых строк пачки
+                Map<Long, BigDecimal> newBalances = new HashMap<>();
+                for (Map.Entry<Long, BigDecimal> delta : itemDeltas.entrySet()) {
+                    BigDecimal balance = balances.get(delta.getKey()).add(delta.getValue());
+                    if (delta.getValue().signum() < 0 && balance.signum() < 0)
+                        throw new NotEnoughBalanceException("Not enough balance in account id " + delta.getKey() + "!");
+                    newBalances.put(delta.getKey(), balance);
+                }
+                balances.putAll(newBalances);
+                for (Map.Entry<Long, BigDecimal> delta : itemDeltas.entrySet())
+                    deltas.merge(delta.getKey(), delta.getValue(), BigDecimal::add);
+                transactions.add(transaction);
+                posted.add(result);
+            } catch (RuntimeException e) {
+                failed = true;
+                result.setStatus("ERROR");
+                result.setMessage(e.getMessage());
+            }
+            results.add(result);
+        }
 
-    @Override
-    public List<Transaction> getAllByUserId(Long userId) {
-        return transactionRepository.findAllByUserId(userId);
-    }
+        if (failed && transactionBatchDTO.isAtomic())
+            return ResponseEntity.badRequest().body(results);
 
-    @Override
-    public List<Transaction> getAllByFromAccount(Long accountId) {
-        return transactionRepository.findAllByFromAccountId(accountId);
+        balanceService.applyDeltas(deltas);
+        transactionRepository.saveAll(transactions);
+        transactionRollupService.addAll(transactions);
+        for (int i = 0; i < transactions.size(); i++)
+            posted.get(i).setId(transactions.get(i).getId());
+        return ResponseEntity.ok().body(results);
     }
 
-    @Override
-    public List<Transaction> getAllByToAccount(Long accountId) {
-        return transactionRepository.findAllByToAccountId(accountId);
+    private static void addIfNotNull(Set<Long> ids, Long id) {
+        if (id != null)
+            ids.add(id);
     }
 
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-    @Override
-    public List<Transaction> getAllByDateCreatedAfter(String after) {
-        return transactionRepository.findAllByDateCreatedAfter(LocalDateTime.parse(after, formatter));
-     }
-
-    @Override
-    public List<Transaction> getAllByDateCreatedBefore(String before) {
-        return transactionRepository.findAllByDateCreatedBefore(LocalDateTime.parse(before, formatter));
+    private static <T extends BaseEntity> Map<Long, T> active(List<T> entities) {
+        Map<Long, T> map = new HashMap<>();
+        for (T entity : entities) {
+            if (!entity.isDeleted())
+                map.put(entity.getId(), entity);
+        }
+        return map;
     }
 
-    @Override
-    public List<Transaction> getAllByProject(Long projectId) {
-        return transactionRepository.findAllByProjectId(projectId);
+    //по первичному ключу: в рамках запроса пользователь уже в persistence context
+    private User author(String userEmail) {
+        return userRepository.findById(currentUser.get(userEmail).getId())
+                .orElseThrow(() -> new ResourceNotFoundException("User email " + userEmail + " not found!"));
     }
 
-    @Override
-    public List<Transaction> getAllByCounterparty(Long counterpartyId) {
-        return transactionRepository.findAllByCounterpartyId(counterpartyId);
+    private static <T> T find(Map<Long, T> entities, Long id, String name) {
+        T entity = id == null ? null : entities.get(id);
+        if (entity == null)
+            throw new ResourceNotFoundException(name + " id " + id + " not found!");
+        return entity;
     }
 
     @Override
-    public List<Transaction> getAllByCategory(Long categoryId) {
-        return transactionRepository.findAllByCategoryId(categoryId);
+    public ResponseEntity<Transaction> getByIdForAdmin(Long id) {
+        Transaction transaction = transactionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Transaction id " + id + " not found!"));
+        return ResponseEntity.ok().body(transaction);
     }
 
     @Override
-    public List<Transaction> getAllByBalanceGreaterThanEqual(BigDecimal balance) {
-        return transactionRepository.findAllByBalanceGreaterThanEqual(balance);
-    }
+    public ResponseEntity<Transaction> getByIdForUser(Long id, String userEmail) {
+        Transaction transaction = transactionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Transaction id " + id + " not found!"));
+        if (transaction.isDeleted())
+            throw new ResourceNotFoundException("Transaction id " + id + " was deleted!");
 
-    @Override
-    public List<Transaction> getAllByBalanceLessThanEqual(BigDecimal balance) {
-        return transactionRepository.findAllByBalanceLessThanEqual(balance);
+        if (transaction.getAction().equals("REMITTANCE"))
+            return ResponseEntity.ok().body(transaction);
+        if (currentUser.get(userEmail).inDepartment(transaction.getDepartment()))
+            return ResponseEntity.ok().body(transaction);
+        throw new AccessDenied("You do not have access to the next departmentId: " + transaction.getDepartment().getId());
     }
 
     @Override
+    @Transactional
     public ResponseEntity<Transaction> updateIncomeById(TransactionIncomeDTO transactionIncomeDTO, Long id, String userEmail) {
         Transaction transaction = transactionRepository
-                .findById(id).orElseThrow(() -> new ResourceNotFoundException("Transaction id " + id + " not found!"));
+                .findByIdForUpdate(id).orElseThrow(() -> new ResourceNotFoundException("Transaction id " + id + " not found!"));
         if (transaction.isDeleted())
             throw new ResourceNotFoundException("Transaction id " + id + " was deleted!");
         if (!transaction.getAction().equals("INCOME"))
             throw new ResourceNotFoundException("Transaction id " + id + " is NOT INCOME action!");
 
-        List<Department> departmentList = userRepository.findByEmail(userEmail).getDepartments();
-        if (!transaction.getUser().getRole().getName().equals("ROLE_ADMIN") && !departmentList.contains(transaction.getDepartment()))
+        Set<Long> departmentIds = currentUser.get(userEmail).getDepartmentIds();
+        if (!transaction.getUser().getRole().getName().equals("ROLE_ADMIN") && !departmentIds.contains(transaction.getDepartment().getId()))
             throw new AccessDenied("You do not have access to the next departmentId: " + transaction.getDepartment().getId());
-        if (!transaction.getUser().getRole().getName().equals("ROLE_ADMIN") && !departmentList.contains(transactionIncomeDTO.getDepartment()))
+        if (!transaction.getUser().getRole().getName().equals("ROLE_ADMIN") && !departmentIds.contains(transactionIncomeDTO.getDepartment()))
             throw new AccessDenied("You do not have access to the next departmentId: " + transactionIncomeDTO.getDepartment());
 
-        if (transaction.getDepartment().getId() != transactionIncomeDTO.getDepartment()){
+        Account oldAccount = accountService.getAccountById(transaction.getToAccount().getId()).getBody();
+        Account newAccount = accountService.getAccountById(transactionIncomeDTO.getToAccount()).getBody();
+
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        deltas.merge(oldAccount.getId(), transaction.getBalance().negate(), BigDecimal::add);
+        deltas.merge(newAccount.getId(), transactionIncomeDTO.getBalance(), BigDecimal::add);
+        transaction.setToAccount(balanceService.applyDeltas(deltas).get(newAccount.getId()));
+
+        transactionRollupService.remove(transaction);
+        if (!Objects.equals(transaction.getDepartment().getId(), transactionIncomeDTO.getDepartment())){
             Department department = departmentService.getDepartmentById(transactionIncomeDTO.getDepartment()).getBody();
             transaction.setDepartment(department);
         }
 
-        if (transaction.getCategory().getId() != transactionIncomeDTO.getCategory()){
+        if (!Objects.equals(transaction.getCategory().getId(), transactionIncomeDTO.getCategory())){
             Category category = categoryService.getCategoryById(transactionIncomeDTO.getCategory()).getBody();
             transaction.setCategory(category);
         }
-        if (transaction.getProject().getId() != transactionIncomeDTO.getProject()){
+        if (!Objects.equals(transaction.getProject().getId(), transactionIncomeDTO.getProject())){
             Project project = projectService.getProjectById(transactionIncomeDTO.getProject()).getBody();
             transaction.setProject(project);
         }
-        if (transaction.getCounterparty().getId() != transactionIncomeDTO.getCounterparty()){
+        if (!Objects.equals(transaction.getCounterparty().getId(), transactionIncomeDTO.getCounterparty())){
             Counterparty counterparty = counterpartyService.getCounterpartyById(transactionIncomeDTO.getCounterparty()).getBody();
             transaction.setCounterparty(counterparty);
         }
 
-        Account oldAccount = accountService.getAccountById(transaction.getToAccount().getId()).getBody();
-        Account newAccount = accountService.getAccountById(transactionIncomeDTO.getToAccount()).getBody();
-
-        BigDecimal balance;
-        if (oldAccount.getId() == newAccount.getId()){
-            balance = oldAccount.getBalance().subtract(transaction.getBalance()).add(transactionIncomeDTO.getBalance());
-            if (balance.compareTo(BigDecimal.ZERO) < 0)
-                throw new NotEnoughBalanceException("Not enough balance in account id " + oldAccount.getId() + "!");
-            oldAccount.setBalance(balance);
-            transaction.setToAccount(accountRepository.save(oldAccount));
-        } else {
-            balance = oldAccount.getBalance().subtract(transaction.getBalance());
-            if (balance.compareTo(BigDecimal.ZERO) < 0)
-                throw new NotEnoughBalanceException("Not enough balance in account id " + oldAccount.getId() + "!");
-            oldAccount.setBalance(balance);
-            accountRepository.save(oldAccount);
-
-            newAccount.setBalance(newAccount.getBalance().add(transactionIncomeDTO.getBalance()));
-            transaction.setToAccount(accountRepository.save(newAccount));
-        }
-
         transaction.setBalance(transactionIncomeDTO.getBalance());
         transaction.setDescription(transactionIncomeDTO.getDescription());
-        transaction.setUser(userRepository.findByEmail(userEmail));
+        transaction.setUser(author(userEmail));
         transaction.setDeleted(false);
         transactionRepository.save(transaction);
+        transactionRollupService.add(transaction);
         return ResponseEntity.ok().body(transaction);
     }
 
     @Override
+    @Transactional
     public ResponseEntity<Transaction> updateExpenseById(TransactionExpenseDTO transactionExpenseDTO, Long id, String userEmail) {
         Transaction transaction = transactionRepository
-                .findById(id).orElseThrow(() -> new ResourceNotFoundException("Transaction id " + id + " not found!"));
+                .findByIdForUpdate(id).orElseThrow(() -> new ResourceNotFoundException("Transaction id " + id + " not found!"));
         if (transaction.isDeleted())
             throw new ResourceNotFoundException("Transaction id " + id + " was deleted!");
         if (!transaction.getAction().equals("EXPENSE"))
             throw new ResourceNotFoundException("Transaction id " + id + " is NOT EXPENSE action!");
 
-        List<Department> departmentList = userRepository.findByEmail(userEmail).getDepartments();
-        if (!transaction.getUser().getRole().getName().equals("ROLE_ADMIN") && !departmentList.contains(transaction.getDepartment()))
+        Set<Long> departmentIds = currentUser.get(userEmail).getDepartmentIds();
+        if (!transaction.getUser().getRole().getName().equals("ROLE_ADMIN") && !departmentIds.contains(transaction.getDepartment().getId()))
             throw new AccessDenied("You do not have access to the next departmentId: " + transaction.getDepartment().getId());
-        if (!transaction.getUser().getRole().getName().equals("ROLE_ADMIN") && !departmentList.contains(transactionExpenseDTO.getDepartment()))
+        if (!transaction.getUser().getRole().getName().equals("ROLE_ADMIN") && !departmentIds.contains(transactionExpenseDTO.getDepartment()))
             throw new AccessDenied("You do not have access to the next departmentId: " + transactionExpenseDTO.getDepartment());
-        if (transaction.getDepartment().getId() != transactionExpenseDTO.getDepartment()){
+        Account oldAccount = accountService.getAccountById(transaction.getFromAccount().getId()).getBody();
+        Account newAccount = accountService.getAccountById(transactionExpenseDTO.getFromAccount()).getBody();
+
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        deltas.merge(oldAccount.getId(), transaction.getBalance(), BigDecimal::add);
+        deltas.merge(newAccount.getId(), transactionExpenseDTO.getBalance().negate(), BigDecimal::add);
+        transaction.setFromAccount(balanceService.applyDeltas(deltas).get(newAccount.getId()));
+
+        transactionRollupService.remove(transaction);
+        if (!Objects.equals(transaction.getDepartment().getId(), transactionExpenseDTO.getDepartment())){
             Department department = departmentService.getDepartmentById(transactionExpenseDTO.getDepartment()).getBody();
             transaction.setDepartment(department);
         }
 
-        if (transaction.getCategory().getId() != transactionExpenseDTO.getCategory()){
+        if (!Objects.equals(transaction.getCategory().getId(), transactionExpenseDTO.getCategory())){
             Category category = categoryService.getCategoryById(transactionExpenseDTO.getCategory()).getBody();
             transaction.setCategory(category);
         }
-        if (transaction.getProject().getId() != transactionExpenseDTO.getProject()){
+        if (!Objects.equals(transaction.getProject().getId(), transactionExpenseDTO.getProject())){
             Project project = projectService.getProjectById(transactionExpenseDTO.getProject()).getBody();
             transaction.setProject(project);
         }
-        if (transaction.getCounterparty().getId() != transactionExpenseDTO.getCounterparty()){
+        if (!Objects.equals(transaction.getCounterparty().getId(), transactionExpenseDTO.getCounterparty())){
             Counterparty counterparty = counterpartyService.getCounterpartyById(transactionExpenseDTO.getCounterparty()).getBody();
             transaction.setCounterparty(counterparty);
         }
 
-        Account oldAccount = accountService.getAccountById(transaction.getFromAccount().getId()).getBody();
-        Account newAccount = accountService.getAccountById(transactionExpenseDTO.getFromAccount()).getBody();
-
-        BigDecimal balance;
-        if (oldAccount.getId() == newAccount.getId()){
-            balance = oldAccount.getBalance().add(transaction.getBalance()).subtract(transactionExpenseDTO.getBalance());
-            if (balance.compareTo(BigDecimal.ZERO) < 0)
-                throw new NotEnoughBalanceException("Not enough balance in account id " + oldAccount.getId() + "!");
-            oldAccount.setBalance(balance);
-            transaction.setFromAccount(accountRepository.save(oldAccount));
-        } else {
-            balance = newAccount.getBalance().subtract(transactionExpenseDTO.getBalance());
-            if (balance.compareTo(BigDecimal.ZERO) < 0)
-                throw new NotEnoughBalanceException("Not enough balance in account id " + newAccount.getId() + "!");
-            newAccount.setBalance(balance);
-            transaction.setFromAccount(accountRepository.save(newAccount));
-
-            oldAccount.setBalance(oldAccount.getBalance().add(transaction.getBalance()));
-            accountRepository.save(oldAccount);
-        }
-
         transaction.setBalance(transactionExpenseDTO.getBalance());
         transaction.setDescription(transactionExpenseDTO.getDescription());
-        transaction.setUser(userRepository.findByEmail(userEmail));
+        transaction.setUser(author(userEmail));
         transaction.setDeleted(false);
         transactionRepository.save(transaction);
+        transactionRollupService.add(transaction);
         return ResponseEntity.ok().body(transaction);
     }
 
     @Override
+    @Transactional
     public ResponseEntity<Transaction> updateRemittanceById(TransactionRemittanceDTO transactionRemittanceDTO, Long id, String userEmail) {
-        Transaction transaction = transactionRepository.findById(id).orElseThrow(() ->
+        Transaction transaction = transactionRepository.findByIdForUpdate(id).orElseThrow(() ->
                 new ResourceNotFoundException("Transaction id " + id + " not found!"));
         if (transaction.isDeleted())
             throw new ResourceNotFoundException("Transaction id " + id + " was deleted!");
@@ -547,115 +549,51 @@ public class TransactionServiceImpl implements TransactionService{
         Account oldToAccount = accountService.getAccountById(transaction.getToAccount().getId()).getBody();
         Account newToAccount = accountService.getAccountById(transactionRemittanceDTO.getToAccount()).getBody();
 
-        BigDecimal balance;
-        if (oldFromAccount.getId() == newFromAccount.getId()) {
-            balance = oldFromAccount.getBalance().add(transaction.getBalance()).subtract(transactionRemittanceDTO.getBalance());
-            if (balance.compareTo(BigDecimal.ZERO) < 0)
-                throw new NotEnoughBalanceException("Not enough balance in account id " + oldFromAccount.getId() + "!");
-            oldFromAccount.setBalance(balance);
-            transaction.setFromAccount(accountRepository.save(oldFromAccount));
-
-            if (oldToAccount == newToAccount) {
-                balance = oldToAccount.getBalance().subtract(transaction.getBalance()).add(transactionRemittanceDTO.getBalance());
-                if (balance.compareTo(BigDecimal.ZERO) < 0)
-                    throw new NotEnoughBalanceException("Not enough balance in account id " + oldToAccount.getId() + "!");
-                oldToAccount.setBalance(balance);
-                transaction.setToAccount(accountRepository.save(oldToAccount));
-            } else {
-                balance = oldToAccount.getBalance().subtract(transaction.getBalance());
-                if (balance.compareTo(BigDecimal.ZERO) < 0)
-                    throw new NotEnoughBalanceException("Not enough balance in account id " + oldToAccount.getId() + "!");
-                oldToAccount.setBalance(balance);
-                accountRepository.save(oldToAccount);
-
-                balance = newToAccount.getBalance().add(transactionRemittanceDTO.getBalance());
-                newToAccount.setBalance(balance);
-                transaction.setToAccount(accountRepository.save(newToAccount));
-            }
-        } else {
-            balance = oldFromAccount.getBalance().add(transaction.getBalance());
-            oldFromAccount.setBalance(balance);
-            accountRepository.save(oldFromAccount);
-
-            balance = newFromAccount.getBalance().subtract(transactionRemittanceDTO.getBalance());
-            if (balance.compareTo(BigDecimal.ZERO) < 0)
-                throw new NotEnoughBalanceException("Not enough balance in account id " + newFromAccount.getId() + "!");
-            newFromAccount.setBalance(balance);
-            transaction.setFromAccount(accountRepository.save(newFromAccount));
-
-            if (oldToAccount == newToAccount) {
-                balance = newToAccount.getBalance().subtract(transaction.getBalance()).add(transactionRemittanceDTO.getBalance());
-                if (balance.compareTo(BigDecimal.ZERO) < 0)
-                    throw new NotEnoughBalanceException("Not enough balance in account id " + newToAccount.getId() + "!");
-                newToAccount.setBalance(balance);
-                transaction.setToAccount(accountRepository.save(newToAccount));
-            } else {
-                balance = oldToAccount.getBalance().subtract(transaction.getBalance());
-                if (balance.compareTo(BigDecimal.ZERO) < 0)
-                    throw new NotEnoughBalanceException("Not enough balance in account id " + oldToAccount.getId() + "!");
-                oldToAccount.setBalance(balance);
-                accountRepository.save(oldToAccount);
-
-                balance = newToAccount.getBalance().add(transactionRemittanceDTO.getBalance());
-                newToAccount.setBalance(balance);
-                transaction.setToAccount(accountRepository.save(newToAccount));
-            }
-
-        }
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        deltas.merge(oldFromAccount.getId(), transaction.getBalance(), BigDecimal::add);
+        deltas.merge(newFromAccount.getId(), transactionRemittanceDTO.getBalance().negate(), BigDecimal::add);
+        deltas.merge(oldToAccount.getId(), transaction.getBalance().negate(), BigDecimal::add);
+        deltas.merge(newToAccount.getId(), transactionRemittanceDTO.getBalance(), BigDecimal::add);
+        Map<Long, Account> accounts = balanceService.applyDeltas(deltas);
+        transaction.setFromAccount(accounts.get(newFromAccount.getId()));
+        transaction.setToAccount(accounts.get(newToAccount.getId()));
+        transactionRollupService.remove(transaction);
 
         transaction.setBalance(transactionRemittanceDTO.getBalance());
         transaction.setDescription(transactionRemittanceDTO.getDescription());
-        transaction.setUser(userRepository.findByEmail(userEmail));
+        transaction.setUser(author(userEmail));
         transaction.setDeleted(false);
         transactionRepository.save(transaction);
+        transactionRollupService.add(transaction);
         return ResponseEntity.ok().body(transaction);
     }
 
     @Override
+    @Transactional
     public ResponseMessage deleteTransactionById(Long id, String userEmail) {
-        Transaction transaction;
-        if (userRepository.findByEmail(userEmail).getRole().getName().equals("ROLE_ADMIN"))
-            transaction = transactionService.getByIdForAdmin(id).getBody();
-        else transaction = transactionService.getByIdForUser(id, userEmail).getBody();
-
-        if (transaction.getAction().equals("INCOME") || transaction.getAction().equals("REMITTANCE")){
-            Account toAccount = accountRepository.findById(transaction.getToAccount().getId())
-                    .orElseThrow(()-> new ResourceNotFoundException("Account id " + transaction.getToAccount().getId() + " not found!"));
-            BigDecimal balance = toAccount.getBalance().subtract(transaction.getBalance());
-            if (BigDecimal.ZERO.compareTo(balance) == 1)
-                throw new NotEnoughBalanceException("Not enough balance in account id " + toAccount.getId() + "!");
-            toAccount.setBalance(balance);
-            accountRepository.save(toAccount);
-        }
-        if (transaction.getAction().equals("EXPENSE") || transaction.getAction().equals("REMITTANCE")){
-            Account fromAccount = accountRepository.findById(transaction.getFromAccount().getId())
-                    .orElseThrow(()-> new ResourceNotFoundException("Account id " + transaction.getFromAccount().getId() + " not found!"));
-            BigDecimal balance = fromAccount.getBalance().add(transaction.getBalance());
-            fromAccount.setBalance(balance);
-            accountRepository.save(fromAccount);
-        }
+        //блокируем строку до чтения, иначе два параллельных удаления дважды вернут сумму на счет
+        Transaction transaction = transactionRepository
+                .findByIdForUpdate(id).orElseThrow(() -> new ResourceNotFoundException("Transaction id " + id + " not found!"));
+        if (transaction.isDeleted())
+            throw new ResourceNotFoundException("Transaction id " + id + " was deleted!");
+        AuthenticatedUser user = currentUser.get(userEmail);
+        if (!user.isAdmin() && !transaction.getAction().equals("REMITTANCE") && !user.inDepartment(transaction.getDepartment()))
+            throw new AccessDenied("You do not have access to the next departmentId: " + transaction.getDepartment().getId());
+
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        if (transaction.getAction().equals("INCOME") || transaction.getAction().equals("REMITTANCE"))
+            deltas.merge(transaction.getToAccount().getId(), transaction.getBalance().negate(), BigDecimal::add);
+        if (transaction.getAction().equals("EXPENSE") || transaction.getAction().equals("REMITTANCE"))
+            deltas.merge(transaction.getFromAccount().getId(), transaction.getBalance(), BigDecimal::add);
+        balanceService.applyDeltas(deltas);
+        transactionRollupService.remove(transaction);
         transaction.setDeleted(true);
         transactionRepository.save(transaction);
 
-        Journal journal = new Journal(); //всее действия сохр в транзакции, только del в журнале
-        journal.setTable("TRANSACTION: " + transaction.getAction());
-        journal.setAction("delete");
-        journal.setUser(userRepository.findByEmail(userEmail));
-        journal.setDeleted(false);
-        journalRepository.save(journal);
+        //всее действия сохр в транзакции, только del в журнале
+        auditJournal.record("TRANSACTION: " + transaction.getAction(), "delete", userEmail);
 
         return new ResponseMessage(HttpStatus.OK.value(), "Transaction successfully deleted");
     }
 
-    @Override
-    public Page<Transaction> getByPage(List<Transaction> list, Pageable pageable) {
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-
-        List<Transaction> output = new ArrayList<>();
-        if (start <= end) {
-            output = list.subList(start, end);
-        }
-        return new PageImpl<>(output, pageable, list.size());
-    }
 }
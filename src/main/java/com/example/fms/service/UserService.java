@@ -1,12 +1,15 @@
     package com.example.fms.service;
 
-    import com.example.fms.dto.UserAdminDTO;
+    import com.example.fms.dto.BatchItemResultDTO;
+import com.example.fms.dto.UserAdminDTO;
     import com.example.fms.dto.UserDTO;
     import com.example.fms.dto.UserRegistrDTO;
+    import com.example.fms.dto.UserRowDTO;
     import com.example.fms.entity.ResponseMessage;
     import com.example.fms.entity.User;
     import org.springframework.data.domain.Page;
     import org.springframework.data.domain.Pageable;
+    import org.springframework.data.jpa.domain.Specification;
     import org.springframework.http.ResponseEntity;
     import org.springframework.web.multipart.MultipartFile;
 
@@ -16,6 +19,7 @@
     public interface UserService {
         ResponseEntity<User> save(UserRegistrDTO userRegistrDTO);
         ResponseMessage createUser(UserDTO userDTO);
+    ResponseEntity<List<BatchItemResultDTO>> inviteBatch(List<UserDTO> userDTOList);
         void createAdmin(UserAdminDTO userAdminDTO);
         ResponseMessage activateUser(String code);
         ResponseMessage sendForgotPassword(String email);
@@ -27,16 +31,8 @@
         ResponseEntity<User> setImage(MultipartFile multipartFile, String userEmail) throws IOException;
         ResponseMessage deleteImage(String email);
         ResponseEntity<User> setDepartmentList(List<Long> departmentIdList, String userEmail, String admin);
-            List<User> getAll();
-        Page<User> getByPage(List<User> list, Pageable pageable);
-        List<User> getAllByPosition(String position);
-        List<User> getAllByActive(boolean isActive);
-
-        List<User> getAllByDateCreatedAfter(String after);
-        List<User> getAllByDateCreatedBefore(String before);
-        List<User> getAllByName(String name);
-        List<User> getAllBySurname(String surname);
-        List<User> getAllByDepartments(List<Long> departmentIdList);
+        Page<User> getAll(Specification<User> filter, Pageable pageable);
+        Page<UserRowDTO> getRows(Specification<User> filter, Pageable pageable);
 
         ResponseEntity<User> getByEmail(String email);
         ResponseEntity<User> getById(Long id);
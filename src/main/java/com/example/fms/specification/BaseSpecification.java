@@ -0,0 +1,65 @@
+package com.example.fms.specification;
+
+import com.example.fms.entity.BaseEntity;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+public class BaseSpecification {
+
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private BaseSpecification() {
+    }
+
+    public static <T extends BaseEntity> Specification<T> deleted(boolean isDeleted) {
+        return (root, query, cb) -> cb.equal(root.get("deleted"), isDeleted);
+    }
+
+    public static <T> Specification<T> contains(String attribute, String value) {
+        if (value == null)
+            return null;
+        return (root, query, cb) -> cb.like(cb.lower(root.get(attribute)), "%" + value.toLowerCase() + "%");
+    }
+
+    public static <T> Specification<T> equal(String attribute, Object value) {
+        if (value == null)
+            return null;
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    public static <T> Specification<T> lessThanOrEqual(String attribute, BigDecimal value) {
+        if (value == null)
+            return null;
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get(attribute), value);
+    }
+
+    public static <T> Specification<T> greaterThanOrEqual(String attribute, BigDecimal value) {
+        if (value == null)
+            return null;
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get(attribute), value);
+    }
+
+    public static <T extends BaseEntity> Specification<T> dateCreatedAfter(String after) {
+        if (after == null)
+            return null;
+        LocalDateTime dateTime = LocalDateTime.parse(after, formatter);
+        return (root, query, cb) -> cb.greaterThan(root.get("dateCreated"), dateTime);
+    }
+
+    public static <T extends BaseEntity> Specification<T> dateCreatedBefore(String before) {
+        if (before == null)
+            return null;
+        LocalDateTime dateTime = LocalDateTime.parse(before, formatter);
+        return (root, query, cb) -> cb.lessThan(root.get("dateCreated"), dateTime);
+    }
+
+    //следующая страница ленты: всё, что строго старше (dateCreated, id) последней записи
+    public static <T extends BaseEntity> Specification<T> olderThan(LocalDateTime dateCreated, Long id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("dateCreated"), dateCreated),
+                cb.and(cb.equal(root.get("dateCreated"), dateCreated), cb.lessThan(root.get("id"), id)));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.fms.specification;
+
+import com.example.fms.entity.Department;
+import com.example.fms.entity.Journal;
+import com.example.fms.entity.User;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.Collection;
+
+public class JournalSpecification {
+
+    private JournalSpecification() {
+    }
+
+    //запись видна, если у автора есть хотя бы один общий отдел с пользователем;
+    //exists по user_department вместо join + distinct: строки журнала не размножаются, count и сортировка дешевле
+    public static Specification<Journal> visibleFor(Collection<Long> departmentIds) {
+        return (root, query, cb) -> {
+            if (departmentIds == null || departmentIds.isEmpty())
+                return cb.disjunction();
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<User> author = subquery.from(User.class);
+            Join<User, Department> department = author.join("departments");
+            subquery.select(author.get("id"))
+                    .where(cb.equal(author, root.get("user")), department.get("id").in(departmentIds));
+            return cb.exists(subquery);
+        };
+    }
+
+    public static Specification<Journal> fromId(Long id) {
+        if (id == null)
+            return null;
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("id"), id);
+    }
+
+    public static Specification<Journal> user(Long userId) {
+        if (userId == null)
+            return null;
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.fms.specification;
+
+import com.example.fms.entity.Transaction;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+public class TransactionSpecification {
+
+    private TransactionSpecification() {
+    }
+
+    //переводы видны всем, остальные транзакции только по своим отделам
+    public static Specification<Transaction> visibleFor(Collection<Long> departmentIds) {
+        return (root, query, cb) -> {
+            if (departmentIds == null || departmentIds.isEmpty())
+                return cb.equal(root.get("action"), "REMITTANCE");
+            return cb.or(cb.equal(root.get("action"), "REMITTANCE"),
+                    root.get("department").get("id").in(departmentIds));
+        };
+    }
+
+    public static Specification<Transaction> fromAccount(Long accountId) {
+        if (accountId == null)
+            return null;
+        return (root, query, cb) -> cb.equal(root.get("fromAccount").get("id"), accountId);
+    }
+
+    public static Specification<Transaction> toAccount(Long accountId) {
+        if (accountId == null)
+            return null;
+        return (root, query, cb) -> cb.equal(root.get("toAccount").get("id"), accountId);
+    }
+
+    public static Specification<Transaction> category(Long categoryId) {
+        if (categoryId == null)
+            return null;
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    public static Specification<Transaction> user(Long userId) {
+        if (userId == null)
+            return null;
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Transaction> project(Long projectId) {
+        if (projectId == null)
+            return null;
+        return (root, query, cb) -> cb.equal(root.get("project").get("id"), projectId);
+    }
+
+    public static Specification<Transaction> counterparty(Long counterpartyId) {
+        if (counterpartyId == null)
+            return null;
+        return (root, query, cb) -> cb.equal(root.get("counterparty").get("id"), counterpartyId);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.fms.specification;
+
+import com.example.fms.entity.Department;
+import com.example.fms.entity.User;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class UserSpecification {
+
+    private UserSpecification() {
+    }
+
+    //пользователь должен состоять во всех перечисленных отделах: реляционное деление одним подзапросом
+    //по user_department - group by user_id having count(distinct department_id) = число отделов
+    public static Specification<User> hasDepartments(List<Long> departmentIdList) {
+        if (departmentIdList == null)
+            return null;
+        Set<Long> departmentIds = departmentIdList.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (departmentIds.isEmpty())
+            return null;
+        return (root, query, cb) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<User> member = subquery.from(User.class);
+            Join<User, Department> department = member.join("departments");
+            subquery.select(member.get("id"))
+                    .where(department.get("id").in(departmentIds))
+                    .groupBy(member.get("id"))
+                    .having(cb.equal(cb.countDistinct(department.get("id")), (long) departmentIds.size()));
+            return root.get("id").in(subquery);
+        };
+    }
+}
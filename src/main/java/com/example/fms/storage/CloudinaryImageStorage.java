@@ -0,0 +1,46 @@
+package com.example.fms.storage;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Transformation;
+import com.cloudinary.utils.ObjectUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+// Один клиент на приложение: пул http-соединений переиспользуется между загрузками.
+@Component
+@ConditionalOnProperty(name = "fms.image.storage", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryImageStorage implements ImageStorage {
+    private final Cloudinary cloudinary;
+
+    public CloudinaryImageStorage(@Value("${fms.image.cloudinary.url}") String url) {
+        this.cloudinary = new Cloudinary(url);
+    }
+
+    @Override
+    public String put(String key, InputStream inputStream, String contentType) throws IOException {
+        //uploadLarge принимает InputStream и отправляет его частями, upload - только файл или byte[]
+        Map uploadResult = cloudinary.uploader().uploadLarge(inputStream, ObjectUtils.asMap(
+                "public_id", publicId(key),
+                "resource_type", "image",
+                "overwrite", false));
+        return (String) uploadResult.get("url");
+    }
+
+    @Override
+    public String thumbnail(String key, int size) {
+        //превью строит сам cloudinary по трансформации в url при первом обращении
+        return cloudinary.url()
+                .transformation(new Transformation().width(size).height(size).crop("limit"))
+                .format("png")
+                .generate(publicId(key));
+    }
+
+    private static String publicId(String key) {
+        return key.replaceFirst("\\.[^.]*$", "");
+    }
+}
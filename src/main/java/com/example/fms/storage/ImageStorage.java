@@ -0,0 +1,14 @@
+package com.example.fms.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Хранилище файлов изображений. Ключ строится из sha-256 содержимого, поэтому повторный put
+// того же ключа ничего не меняет. Бэкенд выбирается свойством fms.image.storage: cloudinary или local.
+public interface ImageStorage {
+    //поток читается до конца без промежуточного файла, возвращается url для клиента
+    String put(String key, InputStream inputStream, String contentType) throws IOException;
+
+    //url превью со стороной не больше size, вызывается в фоне после загрузки
+    String thumbnail(String key, int size) throws IOException;
+}
@@ -0,0 +1,57 @@
+package com.example.fms.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Допустимые форматы аватарок. Тип определяется по первым байтам файла, имя и Content-Type от клиента не учитываются:
+// иначе x.html или x.svg попадут в хранилище и будут отдаваться с нашего домена.
+public enum ImageType {
+    JPG("jpg", "image/jpeg"),
+    PNG("png", "image/png"),
+    GIF("gif", "image/gif"),
+    WEBP("webp", "image/webp");
+
+    private final String extension;
+    private final String contentType;
+
+    ImageType(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    // null, если это не jpg, png, gif или webp
+    public static ImageType detect(InputStream inputStream) throws IOException {
+        byte[] header = new byte[12];
+        int length = 0;
+        while (length < header.length) {
+            int read = inputStream.read(header, length, header.length - length);
+            if (read < 0)
+                break;
+            length += read;
+        }
+        if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF)
+            return JPG;
+        if (length >= 8 && startsWith(header, 0, 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'))
+            return PNG;
+        if (length >= 6 && (startsWith(header, 0, 'G', 'I', 'F', '8', '7', 'a') || startsWith(header, 0, 'G', 'I', 'F', '8', '9', 'a')))
+            return GIF;
+        if (length >= 12 && startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'W', 'E', 'B', 'P'))
+            return WEBP;
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int offset, int... signature) {
+        for (int i = 0; i < signature.length; i++)
+            if ((header[offset + i] & 0xFF) != signature[i])
+                return false;
+        return true;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.fms.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+// Файлы в каталоге fms.image.local.dir, отдаются как статика по /images/**. Работает без сети - для разработки и тестов.
+@Component
+@ConditionalOnProperty(name = "fms.image.storage", havingValue = "local")
+public class LocalImageStorage implements ImageStorage, WebMvcConfigurer {
+    public static final String URL_PREFIX = "/images/";
+
+    private final Path dir;
+
+    public LocalImageStorage(@Value("${fms.image.local.dir:images}") String dir) throws IOException {
+        this.dir = Paths.get(dir).toAbsolutePath();
+        Files.createDirectories(this.dir);
+    }
+
+    @Override
+    public String put(String key, InputStream inputStream, String contentType) throws IOException {
+        Path target = dir.resolve(key);
+        if (Files.exists(target))
+            return URL_PREFIX + key;
+        //пишем во временный файл рядом и переименовываем: недописанный файл никогда не виден под ключом
+        Path part = Files.createTempFile(dir, key, ".part");
+        try {
+            Files.copy(inputStream, part, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+        return URL_PREFIX + key;
+    }
+
+    @Override
+    public String thumbnail(String key, int size) throws IOException {
+        String thumbnailKey = "thumb-" + size + "-" + key.replaceFirst("\\.[^.]*$", "") + ".png";
+        if (Files.exists(dir.resolve(thumbnailKey)))
+            return URL_PREFIX + thumbnailKey;
+
+        BufferedImage source = ImageIO.read(dir.resolve(key).toFile());
+        if (source == null)
+            throw new IOException("Unsupported image format: " + key);
+        double scale = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(source, 0, 0, width, height, null);
+        graphics.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(thumbnail, "png", out);
+        return put(thumbnailKey, new ByteArrayInputStream(out.toByteArray()), "image/png");
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler(URL_PREFIX + "**").addResourceLocations(dir.toUri().toString());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.fms.storage;
+
+import com.example.fms.repository.ImageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+// Превью строятся в отдельном пуле, запрос загрузки их не ждёт. Пока превью нет, thumbnailUrl у Image пустой.
+@Component
+public class ThumbnailGenerator {
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailGenerator.class);
+
+    @Autowired
+    private ImageStorage imageStorage;
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Value("${fms.image.thumbnail-size:128}")
+    private int size;
+    @Value("${fms.image.thumbnail-workers:2}")
+    private int workers;
+    @Value("${fms.image.thumbnail-queue-capacity:1000}")
+    private int queueCapacity;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("thumbnail-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public void generate(Long imageId, String key) {
+        //внутри транзакции ждём коммита, иначе фоновый update не увидит строку image
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(imageId, key);
+                }
+            });
+        } else
+            submit(imageId, key);
+    }
+
+    private void submit(Long imageId, String key) {
+        try {
+            executor.execute(() -> {
+                try {
+                    imageRepository.setThumbnailUrl(imageId, imageStorage.thumbnail(key, size));
+                } catch (Exception e) {
+                    log.warn("Thumbnail for image id {} failed", imageId, e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            //превью повторится при следующей загрузке того же файла
+            log.warn("Thumbnail queue is full, image id {} skipped", imageId);
+        }
+    }
+}
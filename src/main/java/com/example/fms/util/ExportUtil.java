@@ -0,0 +1,89 @@
+package com.example.fms.util;
+
+import com.example.fms.exception.UnsupportedFormatException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import org.springframework.http.MediaType;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ExportUtil {
+
+    public static final String CSV = "csv";
+    public static final String NDJSON = "ndjson";
+
+    private static final TypeReference<Map<String, Object>> PROPERTIES = new TypeReference<Map<String, Object>>() {};
+
+    private ExportUtil() {
+    }
+
+    public static MediaType mediaType(String format) {
+        if (CSV.equals(format))
+            return new MediaType("text", "csv", StandardCharsets.UTF_8);
+        if (NDJSON.equals(format))
+            return new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+        throw new UnsupportedFormatException("Unsupported export format " + format + ", use csv or ndjson");
+    }
+
+    //строки пишутся по одной по мере чтения, в памяти только текущая строка и буфер writer'а
+    //колонки CSV - свойства rowType в том порядке, в каком их сериализует Jackson
+    public static <T> void write(Stream<T> rows, Class<T> rowType, String format, ObjectMapper mapper,
+                                 OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        List<String> columns = mapper.getSerializationConfig().introspect(mapper.constructType(rowType))
+                .findProperties().stream()
+                .map(BeanPropertyDefinition::getName)
+                .collect(Collectors.toList());
+        if (CSV.equals(format))
+            writer.write(csvLine(columns));
+        for (Iterator<T> iterator = rows.iterator(); iterator.hasNext(); ) {
+            T row = iterator.next();
+            if (NDJSON.equals(format)) {
+                writer.write(mapper.writeValueAsString(row));
+                writer.write('\n');
+                continue;
+            }
+            Map<String, Object> properties = mapper.convertValue(row, PROPERTIES);
+            List<String> values = new ArrayList<>(columns.size());
+            for (String column : columns) {
+                values.add(cell(properties.get(column)));
+            }
+            writer.write(csvLine(values));
+        }
+        writer.flush();
+    }
+
+    //текст, который Excel примет за формулу (=, +, -, @, а также tab и CR перед ними), выводится с апострофом;
+    //числа, в том числе отрицательные суммы, остаются числами
+    private static String cell(Object value) {
+        if (value == null)
+            return "";
+        if (value instanceof BigDecimal)
+            return ((BigDecimal) value).toPlainString();
+        if (value instanceof Number || value instanceof Boolean)
+            return value.toString();
+        String text = value.toString();
+        if (!text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0)
+            return "'" + text;
+        return text;
+    }
+
+    private static String csvLine(List<String> values) {
+        return values.stream().map(ExportUtil::escape).collect(Collectors.joining(",", "", "\n"));
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.fms.util;
+
+import com.example.fms.dto.FeedDTO;
+import com.example.fms.entity.BaseEntity;
+import com.example.fms.exception.InvalidCursorException;
+import com.example.fms.specification.BaseSpecification;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+public class FeedUtil {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private FeedUtil() {
+    }
+
+    public static <T extends BaseEntity> FeedDTO<T> find(EntityManager entityManager, Class<T> type,
+                                                         Specification<T> filter, String cursor, int size) {
+        return find(entityManager, type, filter, cursor, size, null);
+    }
+
+    //keyset-пагинация: без offset и count, берём size + 1 записей, чтобы понять, есть ли продолжение
+    //entityGraph - имя @NamedEntityGraph, связи из которого загружаются тем же запросом
+    public static <T extends BaseEntity> FeedDTO<T> find(EntityManager entityManager, Class<T> type,
+                                                         Specification<T> filter, String cursor, int size,
+                                                         String entityGraph) {
+        size = Math.max(1, Math.min(size, MAX_SIZE));
+        Specification<T> specification = Specification.where(filter);
+        if (cursor != null && !cursor.isEmpty())
+            specification = specification.and(decode(cursor));
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        query.select(root)
+                .where(specification.toPredicate(root, query, cb))
+                .orderBy(cb.desc(root.get("dateCreated")), cb.desc(root.get("id")));
+        TypedQuery<T> typedQuery = entityManager.createQuery(query)
+                .setMaxResults(size + 1);
+        if (entityGraph != null)
+            typedQuery.setHint("javax.persistence.fetchgraph", entityManager.getEntityGraph(entityGraph));
+        List<T> list = typedQuery.getResultList();
+
+        String nextCursor = null;
+        if (list.size() > size) {
+            list = list.subList(0, size);
+            T last = list.get(size - 1);
+            nextCursor = encode(last.getDateCreated(), last.getId());
+        }
+        return new FeedDTO<>(list, nextCursor);
+    }
+
+    public static String encode(LocalDateTime dateCreated, Long id) {
+        String value = dateCreated + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static <T extends BaseEntity> Specification<T> decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            LocalDateTime dateCreated = LocalDateTime.parse(value.substring(0, separator));
+            Long id = Long.parseLong(value.substring(separator + 1));
+            return BaseSpecification.olderThan(dateCreated, id);
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid cursor " + cursor);
+        }
+    }
+}
@@ -1,21 +1,64 @@
 package com.example.fms.util;
 
+import com.example.fms.security.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class JwtUtil {
+    public static final long EXPIRATION_MS = 48 * 60 * 60 * 1000L;
 
     private String secret = "neobis";
 
+    @Value("${fms.security.token-cache-size:10000}")
+    private long tokenCacheSize;
+
+    // уже проверенные токены по sha-256, каждый живет в кэше до своего exp
+    private Cache<String, Claims> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(tokenCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        Date expiration = claims.getExpiration();
+                        if (expiration == null)
+                            return 0;
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiration.getTime() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -32,6 +75,42 @@ public class JwtUtil {
         return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
     }
 
+    // подпись и срок проверяются при первой встрече токена; невалидный или просроченный токен - null
+    public Claims parse(String token) {
+        String key = DigestUtils.sha256Hex(token);
+        Claims claims = verifiedTokens.getIfPresent(key);
+        if (claims != null)
+            return claims;
+        try {
+            claims = extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        verifiedTokens.put(key, claims);
+        return claims;
+    }
+
+    public CacheStats tokenCacheStats() {
+        return verifiedTokens.stats();
+    }
+
+    public long tokenCacheSize() {
+        return verifiedTokens.estimatedSize();
+    }
+
+    // токены, выпущенные до появления claims uid/role/departments, возвращают null
+    public AuthenticatedUser toUser(Claims claims) {
+        Number id = claims.get("uid", Number.class);
+        String role = claims.get("role", String.class);
+        List<?> departments = claims.get("departments", List.class);
+        if (id == null || role == null || departments == null)
+            return null;
+        Set<Long> departmentIds = departments.stream()
+                .map(department -> ((Number) department).longValue())
+                .collect(Collectors.toSet());
+        return new AuthenticatedUser(id.longValue(), claims.getSubject(), null, role, departmentIds, true);
+    }
+
     private Boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
@@ -41,10 +120,18 @@ public class JwtUtil {
         return createToken(claims, username);
     }
 
+    public String generateToken(AuthenticatedUser user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("uid", user.getId());
+        claims.put("role", user.getRole());
+        claims.put("departments", user.getDepartmentIds());
+        return createToken(claims, user.getUsername());
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
 
         return Jwts.builder().setClaims(claims).setSubject(subject).setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 48 * 60 * 60 * 1000))
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
                 .signWith(SignatureAlgorithm.HS256, secret).compact();
     }
 
@@ -0,0 +1,40 @@
+package com.example.fms.util;
+
+import com.example.fms.exception.InvalidSortException;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Map;
+
+public class PageableUtil {
+
+    private PageableUtil() {
+    }
+
+    //списки по умолчанию отдаются от новых к старым, id нужен для стабильного порядка страниц
+    public static Pageable withDefaultSort(Pageable pageable, Class<?> type) {
+        for (Sort.Order order : pageable.getSort())
+            if (!isSortable(type, order.getProperty()))
+                throw new InvalidSortException("Unknown sort property " + order.getProperty());
+        if (pageable.isUnpaged() || pageable.getSort().isSorted())
+            return pageable;
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Direction.DESC, "dateCreated", "id"));
+    }
+
+    //сортировать можно только по собственным полям сущности, которые видны клиенту; вложенные пути и коллекции нельзя
+    private static boolean isSortable(Class<?> type, String property) {
+        Field field = property.contains(".") ? null : ReflectionUtils.findField(type, property);
+        return field != null
+                && !Modifier.isStatic(field.getModifiers())
+                && !field.isAnnotationPresent(JsonIgnore.class)
+                && !Collection.class.isAssignableFrom(field.getType())
+                && !Map.class.isAssignableFrom(field.getType());
+    }
+}
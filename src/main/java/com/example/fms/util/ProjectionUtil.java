@@ -0,0 +1,71 @@
+package com.example.fms.util;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public class ProjectionUtil {
+
+    private ProjectionUtil() {
+    }
+
+    //страница плоских DTO через select new: только нужные колонки, без сущностей в persistence context
+    //columns получает root и возвращает аргументы конструктора rowType; необязательные связи джойнить LEFT
+    public static <T, R> Page<R> findPage(EntityManager entityManager, Class<T> type, Class<R> rowType,
+                                          Specification<T> filter, Pageable pageable,
+                                          Function<Root<T>, Selection<?>[]> columns) {
+        TypedQuery<R> typedQuery = entityManager.createQuery(select(entityManager, type, rowType, filter, pageable.getSort(), columns));
+        if (pageable.isPaged())
+            typedQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        List<R> content = typedQuery.getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(entityManager, type, filter));
+    }
+
+    //те же строки курсором вперёд: драйвер держит в памяти не больше fetchSize строк, DTO не попадают в persistence context
+    //postgres отдаёт строки порциями только внутри транзакции, поток нужно дочитать и закрыть в ней же
+    public static <T, R> Stream<R> stream(EntityManager entityManager, Class<T> type, Class<R> rowType,
+                                          Specification<T> filter, Sort sort, int fetchSize,
+                                          Function<Root<T>, Selection<?>[]> columns) {
+        return entityManager.createQuery(select(entityManager, type, rowType, filter, sort, columns))
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+    }
+
+    private static <T, R> CriteriaQuery<R> select(EntityManager entityManager, Class<T> type, Class<R> rowType,
+                                                  Specification<T> filter, Sort sort,
+                                                  Function<Root<T>, Selection<?>[]> columns) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = cb.createQuery(rowType);
+        Root<T> root = query.from(type);
+        Predicate predicate = Specification.where(filter).toPredicate(root, query, cb);
+        query.select(cb.construct(rowType, columns.apply(root)));
+        if (predicate != null)
+            query.where(predicate);
+        if (sort.isSorted())
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return query;
+    }
+
+    private static <T> long count(EntityManager entityManager, Class<T> type, Specification<T> filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        Predicate predicate = Specification.where(filter).toPredicate(root, query, cb);
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        if (predicate != null)
+            query.where(predicate);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
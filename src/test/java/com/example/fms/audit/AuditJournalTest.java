@@ -0,0 +1,140 @@
+package com.example.fms.audit;
+
+import com.example.fms.config.TransactionConfig;
+import com.example.fms.entity.AuditOutbox;
+import com.example.fms.entity.Journal;
+import com.example.fms.entity.Role;
+import com.example.fms.entity.User;
+import com.example.fms.repository.AuditOutboxRepository;
+import com.example.fms.repository.JournalRepository;
+import com.example.fms.repository.RoleRepository;
+import com.example.fms.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "fms.audit.max-attempts=2"})
+@Import({AuditJournal.class, JournaledAspect.class, TransactionConfig.class, AuditJournalTest.Action.class})
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AuditJournalTest {
+
+    @TestComponent
+    static class Action {
+        @Transactional
+        @Journaled(table = "#table", action = "create", user = "#email")
+        public void run(String table, String email, boolean rollback) {
+            if (rollback)
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        }
+    }
+
+    @Autowired
+    private Action action;
+
+    @Autowired
+    private AuditJournal auditJournal;
+
+    @Autowired
+    private JournalRepository journalRepository;
+
+    @Autowired
+    private AuditOutboxRepository auditOutboxRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private User user;
+    //ссылка на несуществующего пользователя: journal.user_id нарушает внешний ключ при любой попытке
+    private User missing;
+
+    @BeforeEach
+    public void setup() {
+        user = new User();
+        user.setEmail("user@fms.kg");
+        user.setRole(roleRepository.save(new Role("ROLE_USER")));
+        user.setActive(true);
+        user = userRepository.save(user);
+        missing = new User();
+        missing.setId(user.getId() + 1000);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        ReflectionTestUtils.setField(auditJournal, "durable", true);
+        journalRepository.deleteAll();
+        auditOutboxRepository.deleteAll();
+        userRepository.deleteAll();
+        roleRepository.deleteAll();
+    }
+
+    @Test
+    void poisonOutboxRowIsDeadLetteredAndTheRestIsWritten() {
+        auditJournal.record("ACCOUNT: a", "create", user);
+        auditJournal.record("ACCOUNT: b", "create", missing);
+        auditJournal.record("ACCOUNT: c", "create", "user@fms.kg");
+
+        auditJournal.flush();
+        assertEquals(2, journalRepository.count());
+        assertEquals(1, auditOutboxRepository.findAll().get(0).getAttempts());
+
+        auditJournal.flush();
+        auditJournal.flush();
+        assertEquals(2, journalRepository.count());
+        List<AuditOutbox> deadLetters = auditOutboxRepository.findAll();
+        assertEquals(1, deadLetters.size());
+        assertEquals("ACCOUNT: b", deadLetters.get(0).getTable());
+        assertEquals(2, deadLetters.get(0).getAttempts());
+        assertNotNull(deadLetters.get(0).getLastError());
+    }
+
+    @Test
+    void outboxRowIsRolledBackWithTheAction() {
+        action.run("ACCOUNT: rolled back", "user@fms.kg", true);
+        assertEquals(0, auditOutboxRepository.count());
+
+        action.run("ACCOUNT: committed", "user@fms.kg", false);
+        List<AuditOutbox> rows = auditOutboxRepository.findAll();
+        assertEquals(1, rows.size());
+        assertEquals("ACCOUNT: committed", rows.get(0).getTable());
+    }
+
+    @Test
+    void poisonQueuedEventDoesNotBlockTheQueue() {
+        ReflectionTestUtils.setField(auditJournal, "durable", false);
+        auditJournal.record("ACCOUNT: a", "create", user);
+        auditJournal.record("ACCOUNT: b", "create", missing);
+        auditJournal.record("ACCOUNT: c", "create", "user@fms.kg");
+
+        auditJournal.flush();
+        assertEquals(0, auditOutboxRepository.count());
+        assertEquals(2, journalRepository.count());
+
+        auditJournal.record("ACCOUNT: d", "create", user);
+        auditJournal.flush();
+        assertEquals(3, journalRepository.count());
+        List<String> tables = journalRepository.findAll().stream().map(Journal::getTable).sorted().collect(Collectors.toList());
+        assertEquals(3, tables.size());
+        assertFalse(tables.contains("ACCOUNT: b"));
+    }
+}
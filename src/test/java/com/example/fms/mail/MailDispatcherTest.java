@@ -0,0 +1,118 @@
+package com.example.fms.mail;
+
+import com.example.fms.entity.MailStatus;
+import com.example.fms.entity.OutboxMail;
+import com.example.fms.repository.OutboxMailRepository;
+import com.example.fms.service.MailService;
+import com.example.fms.service.MailServiceImpl;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.mail.internet.MimeMessage;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.mail.username=fms@test.kg",
+        "fms.mail.workers=2",
+        "fms.mail.chunk-size=2",
+        "fms.mail.max-attempts=2",
+        "fms.mail.retry-delay-ms=0"})
+@Import({MailDispatcher.class, MailServiceImpl.class, MailDispatcherTest.SmtpConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MailDispatcherTest {
+
+    @TestConfiguration
+    static class SmtpConfig {
+        @Bean
+        JavaMailSender javaMailSender() {
+            JavaMailSenderImpl sender = new JavaMailSenderImpl();
+            sender.setHost("localhost");
+            sender.setPort(ServerSetupTest.SMTP.getPort());
+            return sender;
+        }
+    }
+
+    @Autowired
+    private MailService mailService;
+
+    @Autowired
+    private MailDispatcher mailDispatcher;
+
+    @Autowired
+    private OutboxMailRepository outboxMailRepository;
+
+    private GreenMail greenMail;
+
+    @BeforeEach
+    public void setup() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        greenMail.stop();
+        outboxMailRepository.deleteAll();
+    }
+
+    @Test
+    void queuedMailIsDeliveredOverSmtp() throws Exception {
+        greenMail.start();
+        for (int i = 0; i < 5; i++)
+            mailService.send("user" + i + "@fms.kg", "Activation Code", "code " + i);
+
+        // за один проход забирается не больше workers * chunk-size писем
+        for (int i = 0; i < 100 && !all(mail -> mail.getStatus() == MailStatus.SENT); i++) {
+            mailDispatcher.dispatch();
+            Thread.sleep(50);
+        }
+        assertTrue(all(mail -> mail.getStatus() == MailStatus.SENT));
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(5, received.length);
+        assertEquals("Activation Code", received[0].getSubject());
+        assertEquals("fms@test.kg", received[0].getFrom()[0].toString());
+    }
+
+    @Test
+    void failedMailIsRetriedThenDead() throws Exception {
+        mailService.send("user@fms.kg", "Change password", "link");
+
+        mailDispatcher.dispatch();
+        await(mail -> mail.getStatus() == MailStatus.PENDING && mail.getAttempts() == 1);
+        assertNotNull(outboxMailRepository.findAll().get(0).getLastError());
+
+        mailDispatcher.dispatch();
+        await(mail -> mail.getStatus() == MailStatus.DEAD && mail.getAttempts() == 2);
+
+        mailDispatcher.dispatch();
+        Thread.sleep(200);
+        assertEquals(2, outboxMailRepository.findAll().get(0).getAttempts());
+    }
+
+    private boolean all(Predicate<OutboxMail> condition) {
+        List<OutboxMail> mails = outboxMailRepository.findAll();
+        return !mails.isEmpty() && mails.stream().allMatch(condition);
+    }
+
+    private void await(Predicate<OutboxMail> condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !all(condition); i++)
+            Thread.sleep(50);
+        assertTrue(all(condition));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.fms.repository;
+
+import com.example.fms.entity.*;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class CacheRegionsTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void everyRegionHasItsOwnBounds() {
+        assertBounds("account", 1, 500);
+        assertBounds("category", 30, 2000);
+        assertBounds("project", 30, 2000);
+        assertBounds("counterparty", 30, 2000);
+        assertBounds("department", 30, 500);
+        assertBounds("staff", 10, 2000);
+    }
+
+    @Test
+    void entitiesUseTheirRegions() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        for (Class<?> entity : Arrays.asList(Account.class, Category.class, Project.class, Counterparty.class,
+                Department.class, Staff.class)) {
+            EntityPersister persister = sessionFactory.getMetamodel().entityPersister(entity);
+            assertNotNull(persister.getCacheAccessStrategy(), entity.getSimpleName());
+            assertEquals(entity.getSimpleName().toLowerCase(), persister.getCacheAccessStrategy().getRegion().getName());
+        }
+    }
+
+    private void assertBounds(String region, long minutes, long maximumSize) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        CacheManager cacheManager = ((JCacheRegionFactory) sessionFactory.getServiceRegistry()
+                .getService(RegionFactory.class)).getCacheManager();
+        Cache<?, ?> cache = cacheManager.getCache(region);
+        assertNotNull(cache, region);
+
+        @SuppressWarnings("unchecked")
+        CaffeineConfiguration<?, ?> configuration = cache.getConfiguration(CaffeineConfiguration.class);
+        assertEquals(TimeUnit.MINUTES.toNanos(minutes), configuration.getExpireAfterWrite().getAsLong(), region);
+        assertEquals(maximumSize, configuration.getMaximumSize().getAsLong(), region);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.fms.repository;
+
+import com.example.fms.entity.Department;
+import com.example.fms.entity.Journal;
+import com.example.fms.entity.Role;
+import com.example.fms.entity.User;
+import com.example.fms.specification.BaseSpecification;
+import com.example.fms.specification.JournalSpecification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class JournalRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JournalRepository journalRepository;
+
+    private List<Department> departments = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        for (int i = 0; i < 3; i++)
+            departments.add(entityManager.persist(new Department("department " + i)));
+        Role role = entityManager.persist(new Role("ROLE_USER"));
+
+        //автор 0 в отделах 0 и 1, автор 1 только в отделе 2
+        User first = user("first@fms.kg", role, departments.get(0), departments.get(1));
+        User second = user("second@fms.kg", role, departments.get(2));
+        for (int i = 0; i < 30; i++) {
+            Journal journal = new Journal();
+            journal.setUser(i % 3 == 2 ? second : first);
+            journal.setTable("TRANSACTION");
+            journal.setAction("create");
+            entityManager.persist(journal);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void authorInSeveralVisibleDepartmentsIsNotDuplicated() {
+        Page<Journal> page = journalRepository.findAll(visibleFor(departments.get(0), departments.get(1)),
+                PageRequest.of(0, 15, Sort.by(Sort.Direction.DESC, "id")));
+
+        assertEquals(20, page.getTotalElements());
+        assertEquals(15, page.getContent().size());
+        assertEquals(15, page.getContent().stream().map(Journal::getId).distinct().count());
+        assertTrue(page.getContent().stream().allMatch(journal -> journal.getUser().getEmail().equals("first@fms.kg")));
+    }
+
+    @Test
+    void onlyRecordsOfAuthorsFromSharedDepartmentsAreVisible() {
+        assertEquals(10, journalRepository.count(visibleFor(departments.get(2))));
+        assertEquals(30, journalRepository.count(visibleFor(departments.get(1), departments.get(2))));
+        assertEquals(0, journalRepository.count(JournalSpecification.visibleFor(Collections.emptyList())));
+    }
+
+    private Specification<Journal> visibleFor(Department... visible) {
+        List<Long> ids = new ArrayList<>();
+        for (Department department : visible)
+            ids.add(department.getId());
+        return Specification.where(BaseSpecification.<Journal>deleted(false)).and(JournalSpecification.visibleFor(ids));
+    }
+
+    private User user(String email, Role role, Department... departmentList) {
+        User user = new User();
+        user.setEmail(email);
+        user.setRole(role);
+        user.setActive(true);
+        user.setDepartments(new ArrayList<>(Arrays.asList(departmentList)));
+        return entityManager.persist(user);
+    }
+}
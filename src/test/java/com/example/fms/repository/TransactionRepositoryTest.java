@@ -0,0 +1,135 @@
+package com.example.fms.repository;
+
+import com.example.fms.dto.FeedDTO;
+import com.example.fms.entity.*;
+import com.example.fms.specification.BaseSpecification;
+import com.example.fms.util.FeedUtil;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class TransactionRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setup() {
+        List<Department> departments = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            departments.add(entityManager.persist(new Department("department " + i)));
+        Role role = entityManager.persist(new Role("ROLE_USER"));
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@fms.kg");
+            user.setRole(role);
+            user.setActive(true);
+            user.setDepartments(new ArrayList<>(Arrays.asList(departments.get(i % 3), departments.get((i + 1) % 3))));
+            users.add(entityManager.persist(user));
+        }
+        List<Account> accounts = new ArrayList<>();
+        List<Category> categories = new ArrayList<>();
+        List<Project> projects = new ArrayList<>();
+        List<Counterparty> counterparties = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Account account = new Account();
+            account.setName("account " + i);
+            account.setBalance(BigDecimal.ZERO);
+            accounts.add(entityManager.persist(account));
+            Category category = new Category();
+            category.setName("category " + i);
+            categories.add(entityManager.persist(category));
+            Project project = new Project();
+            project.setName("project " + i);
+            projects.add(entityManager.persist(project));
+            Counterparty counterparty = new Counterparty();
+            counterparty.setName("counterparty " + i);
+            counterparties.add(entityManager.persist(counterparty));
+        }
+
+        for (int i = 0; i < 40; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setAction(i % 2 == 0 ? "INCOME" : "REMITTANCE");
+            transaction.setBalance(BigDecimal.ONE);
+            transaction.setFromAccount(accounts.get(i % 4));
+            transaction.setToAccount(accounts.get((i + 1) % 4));
+            transaction.setCategory(categories.get(i % 4));
+            transaction.setProject(projects.get((i + 1) % 4));
+            transaction.setCounterparty(counterparties.get((i + 2) % 4));
+            transaction.setUser(users.get(i % 5));
+            transaction.setDepartment(departments.get(i % 3));
+            entityManager.persist(transaction);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        entityManagerFactory.getCache().evictAll();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void pageLoadsAssociationsWithoutSelectPerRow() {
+        Page<Transaction> page = transactionRepository.findAll(BaseSpecification.deleted(false),
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "dateCreated", "id")));
+
+        assertEquals(20, page.getContent().size());
+        assertEquals(40, page.getTotalElements());
+        touch(page.getContent());
+        //страница, count и одна пачка departments пользователей
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void feedLoadsAssociationsWithoutSelectPerRow() {
+        FeedDTO<Transaction> feed = FeedUtil.find(entityManager.getEntityManager(), Transaction.class,
+                BaseSpecification.deleted(false), null, 20, "Transaction.list");
+
+        assertEquals(20, feed.getContent().size());
+        assertNotNull(feed.getNextCursor());
+        touch(feed.getContent());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    //то же, что делает Jackson при сериализации ответа
+    private void touch(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            assertNotNull(transaction.getFromAccount().getName());
+            assertNotNull(transaction.getToAccount().getName());
+            assertNotNull(transaction.getCategory().getName());
+            assertNotNull(transaction.getProject().getName());
+            assertNotNull(transaction.getCounterparty().getName());
+            assertNotNull(transaction.getDepartment().getName());
+            assertNotNull(transaction.getUser().getRole().getName());
+            assertEquals(2, transaction.getUser().getDepartments().size());
+        }
+    }
+}
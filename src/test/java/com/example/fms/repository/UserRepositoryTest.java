@@ -0,0 +1,85 @@
+package com.example.fms.repository;
+
+import com.example.fms.entity.Department;
+import com.example.fms.entity.Role;
+import com.example.fms.entity.User;
+import com.example.fms.specification.UserSpecification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class UserRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private List<Long> departments = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        for (int i = 0; i < 3; i++)
+            departments.add(entityManager.persist(new Department("department " + i)).getId());
+        Role role = entityManager.persist(new Role("ROLE_USER"));
+
+        user("all@fms.kg", role, 0, 1, 2);
+        user("first@fms.kg", role, 0, 1);
+        user("second@fms.kg", role, 1, 2);
+        user("none@fms.kg", role);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void usersInAllListedDepartmentsAreFound() {
+        assertEquals(Arrays.asList("all@fms.kg", "first@fms.kg"), emails(departments.get(0), departments.get(1)));
+        assertEquals(Arrays.asList("all@fms.kg", "first@fms.kg", "second@fms.kg"), emails(departments.get(1)));
+        assertEquals(Arrays.asList("all@fms.kg"), emails(departments.get(0), departments.get(2)));
+    }
+
+    @Test
+    void repeatedDepartmentIsCountedOnce() {
+        assertEquals(Arrays.asList("all@fms.kg", "first@fms.kg"), emails(departments.get(0), departments.get(0)));
+    }
+
+    @Test
+    void pageIsCountedInTheDatabase() {
+        Page<User> page = userRepository.findAll(UserSpecification.hasDepartments(Arrays.asList(departments.get(1))),
+                PageRequest.of(0, 2, Sort.by("email")));
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(2, page.getContent().size());
+    }
+
+    private List<String> emails(Long... departmentIds) {
+        return userRepository.findAll(UserSpecification.hasDepartments(Arrays.asList(departmentIds)), Sort.by("email"))
+                .stream().map(User::getEmail).collect(Collectors.toList());
+    }
+
+    private void user(String email, Role role, int... departmentIndexes) {
+        User user = new User();
+        user.setEmail(email);
+        user.setRole(role);
+        user.setActive(true);
+        List<Department> departmentList = new ArrayList<>();
+        for (int index : departmentIndexes)
+            departmentList.add(entityManager.find(Department.class, departments.get(index)));
+        user.setDepartments(departmentList);
+        entityManager.persist(user);
+    }
+}
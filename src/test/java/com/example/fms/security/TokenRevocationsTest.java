@@ -0,0 +1,131 @@
+package com.example.fms.security;
+
+import com.example.fms.entity.Department;
+import com.example.fms.entity.Role;
+import com.example.fms.entity.User;
+import com.example.fms.filter.JwtFilter;
+import com.example.fms.repository.UserRepository;
+import com.example.fms.service.MyUserDetailsService;
+import com.example.fms.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({TokenRevocations.class, JwtUtil.class, MyUserDetailsService.class, JwtFilter.class})
+class TokenRevocationsTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenRevocations tokenRevocations;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JwtFilter jwtFilter;
+
+    private User user;
+    private Department oldDepartment;
+    private Department newDepartment;
+
+    @BeforeEach
+    public void setup() {
+        oldDepartment = entityManager.persist(new Department("old"));
+        newDepartment = entityManager.persist(new Department("new"));
+        user = new User();
+        user.setEmail("user@fms.kg");
+        user.setRole(entityManager.persist(new Role("ROLE_USER")));
+        user.setActive(true);
+        user.setDepartments(new ArrayList<>(Collections.singletonList(oldDepartment)));
+        user = entityManager.persist(user);
+        entityManager.flush();
+        tokenRevocations.refresh();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void tokenIssuedBeforeDepartmentChangeIsNotTrustedAfterRestart() throws Exception {
+        String token = jwtUtil.generateToken(new AuthenticatedUser(user));
+        assertEquals(Collections.singleton(oldDepartment.getId()), authenticate(token).getDepartmentIds());
+
+        user.setDepartments(new ArrayList<>(Collections.singletonList(newDepartment)));
+        tokenRevocations.changed(user);
+        userRepository.save(user);
+        entityManager.flush();
+
+        //новый экземпляр без состояния в памяти: о смене отделов знает только база
+        TokenRevocations restarted = new TokenRevocations();
+        ReflectionTestUtils.setField(restarted, "userRepository", userRepository);
+        assertTrue(restarted.isStale(user.getId(), new Date()));
+        restarted.refresh();
+        assertTrue(restarted.isStale(user.getId(), jwtUtil.parse(token).getIssuedAt()));
+        assertFalse(restarted.isStale(user.getId(), new Date(System.currentTimeMillis() + 2000)));
+
+        ReflectionTestUtils.setField(jwtFilter, "tokenRevocations", restarted);
+        SecurityContextHolder.clearContext();
+        assertEquals(Collections.singleton(newDepartment.getId()), authenticate(token).getDepartmentIds());
+    }
+
+    @Test
+    void tokenWithoutChangesIsTrustedFromClaims() throws Exception {
+        String token = jwtUtil.generateToken(new AuthenticatedUser(user));
+        //отделы в базе поменяли в обход сервисов: пока нет отметки об изменении, действуют claims
+        user.setDepartments(new ArrayList<>(Collections.singletonList(newDepartment)));
+        entityManager.flush();
+
+        assertEquals(Collections.singleton(oldDepartment.getId()), authenticate(token).getDepartmentIds());
+    }
+
+    @Test
+    void blockDuringRefreshIsNotLost() {
+        //block приходит, когда refresh уже прочитал из базы список заблокированных
+        UserRepository repository = Mockito.mock(UserRepository.class);
+        TokenRevocations revocations = new TokenRevocations();
+        ReflectionTestUtils.setField(revocations, "userRepository", repository);
+        Mockito.when(repository.findIdsByActive(false)).thenAnswer(invocation -> {
+            revocations.block(user.getId());
+            return Collections.emptyList();
+        });
+
+        revocations.refresh();
+        assertTrue(revocations.isBlocked(user.getId()));
+
+        //следующий refresh видит пользователя неблокированным в базе, локального block больше нет
+        Mockito.when(repository.findIdsByActive(false)).thenReturn(Collections.emptyList());
+        revocations.refresh();
+        assertFalse(revocations.isBlocked(user.getId()));
+    }
+
+    private AuthenticatedUser authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+}
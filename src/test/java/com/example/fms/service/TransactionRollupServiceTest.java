@@ -0,0 +1,241 @@
+package com.example.fms.service;
+
+import com.example.fms.dto.ProfitDTO;
+import com.example.fms.entity.*;
+import com.example.fms.repository.TransactionRollupRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//rollup работает на upsert "on conflict", поэтому тест идет на настоящем PostgreSQL, а не на H2
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(TransactionRollupServiceImpl.class)
+class TransactionRollupServiceTest {
+
+    @TestConfiguration
+    static class PostgresConfig {
+        @Bean(destroyMethod = "close")
+        public EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        public DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+
+    private static final LocalDateTime MIDNIGHT = LocalDate.of(2026, 3, 10).atStartOfDay();
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRollupService transactionRollupService;
+
+    @Autowired
+    private TransactionRollupRepository transactionRollupRepository;
+
+    private final List<Department> departments = new ArrayList<>();
+    private final List<Category> categories = new ArrayList<>();
+    private final List<Project> projects = new ArrayList<>();
+    private final List<Counterparty> counterparties = new ArrayList<>();
+    private final List<Transaction> transactions = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        for (int i = 0; i < 3; i++) {
+            departments.add(entityManager.persist(new Department("department " + i)));
+            Category category = new Category();
+            category.setName("category " + i);
+            categories.add(entityManager.persist(category));
+            Project project = new Project();
+            project.setName("project " + i);
+            projects.add(entityManager.persist(project));
+            Counterparty counterparty = new Counterparty();
+            counterparty.setName("counterparty " + i);
+            counterparties.add(entityManager.persist(counterparty));
+        }
+
+        //по обе стороны от каждой полуночи, ровно в полночь и за микросекунду до нее
+        List<LocalDateTime> times = new ArrayList<>();
+        for (int day = -2; day <= 2; day++) {
+            LocalDateTime midnight = MIDNIGHT.plusDays(day);
+            times.add(midnight.minusNanos(1000));
+            times.add(midnight);
+            times.add(midnight.plusNanos(1000));
+            times.add(midnight.plusHours(9).plusMinutes(15));
+            times.add(midnight.plusHours(18));
+        }
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < times.size(); i++) {
+            Transaction transaction = transaction(i % 3 == 2 ? "EXPENSE" : "INCOME", i, times.get(i));
+            if (i % 4 == 0) {
+                batch.add(transaction);
+            } else {
+                transactionRollupService.add(transaction);
+            }
+        }
+        transactionRollupService.addAll(batch);
+        entityManager.flush();
+    }
+
+    @Test
+    void reportsMatchGroupByAfterPostUpdateAndDelete() {
+        assertReportsMatchGroupBy();
+
+        //правка и удаление так же, как в TransactionServiceImpl: снять старую дельту, поменять, добавить новую
+        for (int i = 0; i < transactions.size(); i += 3) {
+            Transaction transaction = transactions.get(i);
+            transactionRollupService.remove(transaction);
+            transaction.setBalance(transaction.getBalance().add(new BigDecimal("0.50")));
+            transaction.setDepartment(departments.get((i + 1) % 3));
+            transaction.setCategory(categories.get((i + 2) % 3));
+            transaction.setProject(projects.get((i + 1) % 3));
+            transaction.setCounterparty(counterparties.get((i + 2) % 3));
+            entityManager.persist(transaction);
+            transactionRollupService.add(transaction);
+        }
+        for (int i = 1; i < transactions.size(); i += 5) {
+            Transaction transaction = transactions.get(i);
+            transactionRollupService.remove(transaction);
+            transaction.setDeleted(true);
+            entityManager.persist(transaction);
+        }
+        entityManager.flush();
+        assertReportsMatchGroupBy();
+
+        transactionRollupService.rebuild();
+        assertReportsMatchGroupBy();
+    }
+
+    @Test
+    void emptyRollupIsFilledAtStartupAndReportsUseTransactionsUntilThen() {
+        TransactionRollupServiceImpl service = AopTestUtils.getTargetObject(transactionRollupService);
+        //состояние сразу после выкладки: транзакции есть, rollup пустой и еще не заполнен
+        transactionRollupRepository.deleteAllRows();
+        ReflectionTestUtils.setField(service, "built", false);
+        assertReportsMatchGroupBy();
+
+        service.backfill();
+        assertTrue((Boolean) ReflectionTestUtils.getField(service, "built"));
+        assertTrue(transactionRollupRepository.anyRows());
+        assertReportsMatchGroupBy();
+
+        //rollup уже заполнен: повторный старт ничего не добавляет
+        long rows = transactionRollupRepository.count();
+        service.backfill();
+        assertEquals(rows, transactionRollupRepository.count());
+        assertReportsMatchGroupBy();
+    }
+
+    private Transaction transaction(String action, int i, LocalDateTime dateCreated) {
+        Transaction transaction = new Transaction();
+        transaction.setAction(action);
+        transaction.setBalance(new BigDecimal(10 + i));
+        transaction.setDepartment(departments.get(i % 3));
+        transaction.setCategory(categories.get((i + 1) % 3));
+        transaction.setProject(projects.get(i % 3));
+        transaction.setCounterparty(counterparties.get((i + 1) % 3));
+        transaction.setDateCreated(dateCreated);
+        transactions.add(entityManager.persist(transaction));
+        return transaction;
+    }
+
+    private void assertReportsMatchGroupBy() {
+        //интервалы, у которых границы попадают ровно на полночь, на проводку и внутрь дня
+        List<LocalDateTime[]> intervals = Arrays.asList(
+                new LocalDateTime[]{MIDNIGHT.minusDays(3), MIDNIGHT.plusDays(3)},
+                new LocalDateTime[]{MIDNIGHT.minusDays(2), MIDNIGHT.plusDays(2)},
+                new LocalDateTime[]{MIDNIGHT.minusDays(1).minusNanos(1000), MIDNIGHT.plusDays(1).plusNanos(1000)},
+                new LocalDateTime[]{MIDNIGHT.minusDays(1).plusHours(9).plusMinutes(15), MIDNIGHT.plusDays(1).plusHours(18)},
+                new LocalDateTime[]{MIDNIGHT.minusNanos(1000), MIDNIGHT.plusNanos(1000)},
+                new LocalDateTime[]{MIDNIGHT.minusHours(12), MIDNIGHT.plusHours(12)},
+                new LocalDateTime[]{MIDNIGHT, MIDNIGHT.plusDays(1)},
+                new LocalDateTime[]{MIDNIGHT.plusHours(1), MIDNIGHT.plusHours(20)});
+        for (LocalDateTime[] interval : intervals) {
+            for (String action : Arrays.asList("INCOME", "EXPENSE")) {
+                assertReport(action, "category", "category", "category_id", interval[0], interval[1]);
+                assertReport(action, "project", "project", "project_id", interval[0], interval[1]);
+                assertReport(action, "counterparty", "counterparty", "counterparty_id", interval[0], interval[1]);
+            }
+            assertProfit(interval[0], interval[1]);
+        }
+    }
+
+    private void assertReport(String action, String groupBy, String table, String column,
+                              LocalDateTime after, LocalDateTime before) {
+        List<?> rows = entityManager.getEntityManager().createNativeQuery(
+                "select g.name, sum(t.balance) from " + table + " g left join transaction t on t." + column + " = g.id " +
+                        "and t.is_deleted = false and t.action = ?1 and t.date_created > ?2 and t.date_created < ?3 " +
+                        "group by g.id, g.name")
+                .setParameter(1, action)
+                .setParameter(2, Timestamp.valueOf(after))
+                .setParameter(3, Timestamp.valueOf(before))
+                .getResultList();
+        Map<String, BigDecimal> expected = new HashMap<>();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            expected.put((String) columns[0], scaled((BigDecimal) columns[1]));
+        }
+
+        Map<String, BigDecimal> actual = new HashMap<>();
+        transactionRollupService.report(action, groupBy, after, before)
+                .forEach((name, total) -> actual.put(name, scaled(total)));
+        assertEquals(expected, actual, action + " by " + groupBy + " in (" + after + ", " + before + ")");
+    }
+
+    private void assertProfit(LocalDateTime after, LocalDateTime before) {
+        List<?> rows = entityManager.getEntityManager().createNativeQuery(
+                "select cast(date_created as date) as day, departament_id, " +
+                        "sum(case when action = 'INCOME' then balance else 0 end) as income, " +
+                        "sum(case when action = 'EXPENSE' then balance else 0 end) as expense from transaction " +
+                        "where is_deleted = false and action in ('INCOME', 'EXPENSE') " +
+                        "and date_created > ?1 and date_created < ?2 group by 1, 2")
+                .setParameter(1, Timestamp.valueOf(after))
+                .setParameter(2, Timestamp.valueOf(before))
+                .getResultList();
+        Map<String, List<BigDecimal>> expected = new HashMap<>();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            expected.put(((Date) columns[0]).toLocalDate() + "|" + ((Number) columns[1]).longValue(),
+                    Arrays.asList(scaled((BigDecimal) columns[2]), scaled((BigDecimal) columns[3])));
+        }
+
+        Map<String, List<BigDecimal>> actual = new HashMap<>();
+        for (ProfitDTO day : transactionRollupService.profit(after, before, "day", true)) {
+            //после правок в rollup остаются строки с нулевой суммой, в GROUP BY их нет
+            if (day.getIncome().signum() == 0 && day.getExpense().signum() == 0)
+                continue;
+            assertNotNull(day.getDepartment());
+            actual.put(day.getPeriod() + "|" + day.getDepartmentId(),
+                    Arrays.asList(scaled(day.getIncome()), scaled(day.getExpense())));
+        }
+        assertEquals(expected, actual, "profit in (" + after + ", " + before + ")");
+    }
+
+    private static BigDecimal scaled(BigDecimal value) {
+        return (value == null ? BigDecimal.ZERO : value).setScale(2, BigDecimal.ROUND_UNNECESSARY);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.fms.storage;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageTypeTest {
+
+    @Test
+    void detectsImagesByContent() throws Exception {
+        assertEquals(ImageType.PNG, ImageType.detect(new ByteArrayInputStream(image("png"))));
+        assertEquals(ImageType.JPG, ImageType.detect(new ByteArrayInputStream(image("jpg"))));
+        assertEquals(ImageType.GIF, ImageType.detect(new ByteArrayInputStream(image("gif"))));
+        assertEquals(ImageType.WEBP, ImageType.detect(new ByteArrayInputStream("RIFF\0\0\0\0WEBPVP8 ".getBytes("ISO-8859-1"))));
+    }
+
+    @Test
+    void rejectsScriptsAndShortFiles() throws Exception {
+        assertNull(ImageType.detect(new ByteArrayInputStream("<html><script>alert(1)</script></html>".getBytes())));
+        assertNull(ImageType.detect(new ByteArrayInputStream(
+                "<svg xmlns=\"http://www.w3.org/2000/svg\" onload=\"alert(1)\"/>".getBytes())));
+        assertNull(ImageType.detect(new ByteArrayInputStream(new byte[]{(byte) 0xFF, (byte) 0xD8})));
+        assertNull(ImageType.detect(new ByteArrayInputStream(new byte[0])));
+    }
+
+    private static byte[] image(String format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), format, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.fms.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalImageStorageTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void putIsIdempotentAndLeavesNoPartialFiles() throws Exception {
+        LocalImageStorage storage = new LocalImageStorage(dir.toString());
+
+        assertEquals("/images/abc.txt", storage.put("abc.txt", new ByteArrayInputStream("first".getBytes()), "text/plain"));
+        assertEquals("/images/abc.txt", storage.put("abc.txt", new ByteArrayInputStream("second".getBytes()), "text/plain"));
+
+        assertEquals("first", new String(Files.readAllBytes(dir.resolve("abc.txt"))));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void thumbnailKeepsAspectRatio() throws Exception {
+        LocalImageStorage storage = new LocalImageStorage(dir.toString());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB), "png", out);
+        storage.put("abc.png", new ByteArrayInputStream(out.toByteArray()), "image/png");
+
+        assertEquals("/images/thumb-100-abc.png", storage.thumbnail("abc.png", 100));
+
+        BufferedImage thumbnail = ImageIO.read(dir.resolve("thumb-100-abc.png").toFile());
+        assertEquals(100, thumbnail.getWidth());
+        assertEquals(50, thumbnail.getHeight());
+    }
+}
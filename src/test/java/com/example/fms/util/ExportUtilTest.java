@@ -0,0 +1,40 @@
+package com.example.fms.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportUtilTest {
+
+    @Data
+    @AllArgsConstructor
+    public static class Row {
+        private String name;
+        private String description;
+        private BigDecimal balance;
+    }
+
+    @Test
+    void formulasAreNeutralizedAndNumbersKept() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportUtil.write(Stream.of(
+                new Row("=HYPERLINK(\"http://x\",\"y\")", "+1", new BigDecimal("-150.00")),
+                new Row("@SUM(A1)", "-2, and more", BigDecimal.TEN),
+                new Row("\t=cmd", "plain", null)),
+                Row.class, ExportUtil.CSV, new ObjectMapper(), out);
+
+        assertEquals("name,description,balance\n" +
+                        "\"'=HYPERLINK(\"\"http://x\"\",\"\"y\"\")\",'+1,-150.00\n" +
+                        "'@SUM(A1),\"'-2, and more\",10\n" +
+                        "'\t=cmd,plain,\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
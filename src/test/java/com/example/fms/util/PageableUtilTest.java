@@ -0,0 +1,35 @@
+package com.example.fms.util;
+
+import com.example.fms.entity.Transaction;
+import com.example.fms.entity.User;
+import com.example.fms.exception.InvalidSortException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageableUtilTest {
+
+    @Test
+    void knownPropertiesAndDefaultSortPass() {
+        Pageable byBalance = PageRequest.of(0, 20, Sort.by("balance", "dateCreated"));
+        assertSame(byBalance, PageableUtil.withDefaultSort(byBalance, Transaction.class));
+
+        Pageable unsorted = PageableUtil.withDefaultSort(PageRequest.of(1, 20), Transaction.class);
+        assertEquals(Sort.by(Sort.Direction.DESC, "dateCreated", "id"), unsorted.getSort());
+    }
+
+    @Test
+    void unknownHiddenAndNestedPropertiesAreRejected() {
+        assertThrows(InvalidSortException.class,
+                () -> PageableUtil.withDefaultSort(PageRequest.of(0, 20, Sort.by("nope")), Transaction.class));
+        assertThrows(InvalidSortException.class,
+                () -> PageableUtil.withDefaultSort(PageRequest.of(0, 20, Sort.by("user.password")), Transaction.class));
+        assertThrows(InvalidSortException.class,
+                () -> PageableUtil.withDefaultSort(PageRequest.of(0, 20, Sort.by("password")), User.class));
+        assertThrows(InvalidSortException.class,
+                () -> PageableUtil.withDefaultSort(PageRequest.of(0, 20, Sort.by("departments")), User.class));
+    }
+}